@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils.benchmark;
+
+import io.redlink.utils.Blake3;
+import io.redlink.utils.HashUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of BLAKE3 compared with the {@link java.security.MessageDigest}-based algorithms,
+ * and sequential compared to parallel (tree) hashing of a file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Blake3Benchmark {
+
+    @Param({"MD5", "SHA1", "SHA256", "SHA512", "BLAKE3"})
+    private HashUtils.HashAlg algorithm;
+
+    @Param({"1024", "1048576"})
+    private int length;
+
+    private byte[] bytes;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        file = Files.createTempFile("blake3-benchmark", ".bin");
+        final byte[] data = new byte[64 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        Files.write(file, data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] digestBytes() {
+        return HashUtils.digest(algorithm, bytes);
+    }
+
+    @Benchmark
+    public byte[] digestFile() throws IOException {
+        return HashUtils.digest(algorithm, file);
+    }
+
+    @Benchmark
+    public byte[] blake3FileSequential() throws IOException {
+        final Blake3 hasher = Blake3.newInstance();
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                hasher.update(buffer, 0, n);
+            }
+        }
+        return hasher.digest();
+    }
+
+    @Benchmark
+    public byte[] blake3FileParallel() throws IOException {
+        return Blake3.digest(file, ForkJoinPool.commonPool());
+    }
+
+}
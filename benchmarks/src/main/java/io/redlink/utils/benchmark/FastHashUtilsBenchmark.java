@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils.benchmark;
+
+import io.redlink.utils.FastHashUtils;
+import io.redlink.utils.HashUtils;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the non-cryptographic {@link FastHashUtils} compared with {@link HashUtils#md5sum(byte[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FastHashUtilsBenchmark {
+
+    @Param({"64", "4096", "1048576"})
+    private int length;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+    }
+
+    @Benchmark
+    public byte[] md5() {
+        return HashUtils.digest(HashUtils.HashAlg.MD5, bytes);
+    }
+
+    @Benchmark
+    public long xxHash64() {
+        return FastHashUtils.xxHash64(bytes);
+    }
+
+    @Benchmark
+    public byte[] murmur3() {
+        return FastHashUtils.digest(FastHashUtils.FastHashAlg.MURMUR3_128, bytes);
+    }
+
+}
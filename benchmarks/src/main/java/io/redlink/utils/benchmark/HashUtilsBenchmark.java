@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils.benchmark;
+
+import io.redlink.utils.HashUtils;
+import io.redlink.utils.HmacSigner;
+import io.redlink.utils.RandomUtils;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing of small inputs: {@link HashUtils} compared with a new {@link MessageDigest} per call
+ * (the previous implementation) and with a re-used {@link MessageDigest} (raw digest speed),
+ * as well as HMAC with {@link Mac#getInstance(String)} per call compared to a re-used {@link HmacSigner}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HashUtilsBenchmark {
+
+    @Param({"16", "64", "1024"})
+    private int length;
+
+    private String string;
+    private byte[] bytes;
+    private MessageDigest reused;
+    private SecretKeySpec hmacKey;
+    private HmacSigner hmacSigner;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        string = RandomUtils.nextString(length);
+        bytes = string.getBytes(StandardCharsets.UTF_8);
+        reused = MessageDigest.getInstance("SHA-256");
+        hmacKey = new SecretKeySpec(RandomUtils.nextString(32).getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        hmacSigner = new HmacSigner(HashUtils.HashAlg.SHA256, hmacKey.getEncoded());
+    }
+
+    @Benchmark
+    public byte[] getInstancePerCall() throws NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return digest.digest(bytes);
+    }
+
+    @Benchmark
+    public byte[] reusedDigest() {
+        return reused.digest(bytes);
+    }
+
+    @Benchmark
+    public byte[] hashUtilsDigest() {
+        return HashUtils.digest(HashUtils.HashAlg.SHA256, bytes);
+    }
+
+    @Benchmark
+    public String hashUtilsSha256String() {
+        return HashUtils.sha256(string);
+    }
+
+    @Benchmark
+    public byte[] hmacGetInstancePerCall() throws NoSuchAlgorithmException, InvalidKeyException {
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(hmacKey);
+        return mac.doFinal(bytes);
+    }
+
+    @Benchmark
+    public byte[] hmacSigner() {
+        return hmacSigner.digest(bytes);
+    }
+
+}
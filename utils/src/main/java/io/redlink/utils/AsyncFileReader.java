@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Feeds the content of a file into a {@link ByteBuffer}-consumer using an {@link AsynchronousFileChannel},
+ * without blocking the calling thread.
+ *
+ * <p>Reads are pipelined with two (direct) buffers: the next read is issued before the current buffer is passed
+ * to the consumer. The consumer is called sequentially and in file-order, but not necessarily from the same thread.
+ * {@link CompletableFuture#cancel(boolean) Cancelling} the returned future closes the channel
+ * and stops reading.</p>
+ * <p>On most platforms (e.g. Linux and macOS) the {@link AsynchronousFileChannel} is simulated with blocking reads
+ * on the threads of the executor, so a file being read occupies one executor thread while waiting for I/O.
+ * Without an explicit executor, a shared pool of {@link #DEFAULT_POOL_SIZE} daemon threads is used, which bounds
+ * the number of files read concurrently.</p>
+ */
+final class AsyncFileReader<T> implements CompletionHandler<Integer, ByteBuffer> {
+
+    /**
+     * Number of threads of the shared default executor.
+     */
+    static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final AsynchronousFileChannel channel;
+    private final Consumer<ByteBuffer> consumer;
+    private final Supplier<T> finisher;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final ByteBuffer[] buffers = {
+            ByteBuffer.allocateDirect(FileChannels.BUFFER_SIZE),
+            ByteBuffer.allocateDirect(FileChannels.BUFFER_SIZE)
+    };
+
+    /** position of the next read */
+    private long position = 0;
+    /** a consumer is currently running */
+    private boolean consuming = false;
+    /** a completed read waiting for the running consumer */
+    private ByteBuffer pendingBuffer = null;
+    private int pendingResult;
+
+    private AsyncFileReader(AsynchronousFileChannel channel, Consumer<ByteBuffer> consumer, Supplier<T> finisher) {
+        this.channel = channel;
+        this.consumer = consumer;
+        this.finisher = finisher;
+        future.whenComplete((r, e) -> close());
+    }
+
+    /**
+     * Read the complete file.
+     * @param file the file to read
+     * @param executor the executor for the channel's reads and completion handlers,
+     *                 {@code null} for the shared default executor
+     * @param consumer receives the content of the file, buffer by buffer
+     * @param finisher provides the result, once the file was read completely
+     * @return the (cancellable) future result
+     */
+    static <T> CompletableFuture<T> read(Path file, ExecutorService executor, Consumer<ByteBuffer> consumer, Supplier<T> finisher) {
+        final AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(file, Set.of(StandardOpenOption.READ),
+                    executor != null ? executor : DefaultExecutor.INSTANCE);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        final AsyncFileReader<T> reader = new AsyncFileReader<>(channel, consumer, finisher);
+        reader.readNext(reader.buffers[0]);
+        return reader.future;
+    }
+
+    @Override
+    public void completed(Integer result, ByteBuffer buffer) {
+        synchronized (this) {
+            if (consuming) {
+                pendingBuffer = buffer;
+                pendingResult = result;
+                return;
+            }
+            consuming = true;
+        }
+        ByteBuffer next = buffer;
+        int nextResult = result;
+        while (next != null) {
+            process(next, nextResult);
+            synchronized (this) {
+                next = pendingBuffer;
+                nextResult = pendingResult;
+                pendingBuffer = null;
+                consuming = next != null;
+            }
+        }
+    }
+
+    @Override
+    public void failed(Throwable exc, ByteBuffer buffer) {
+        future.completeExceptionally(exc);
+    }
+
+    private void process(ByteBuffer buffer, int result) {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            if (result < 0) {
+                future.complete(finisher.get());
+                return;
+            }
+            position += result;
+            // pipelining: the other buffer was already consumed, start the next read before consuming this one
+            readNext(buffer == buffers[0] ? buffers[1] : buffers[0]);
+            buffer.flip();
+            consumer.accept(buffer);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void readNext(ByteBuffer buffer) {
+        buffer.clear();
+        try {
+            channel.read(buffer, position, buffer, this);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Lazily created shared default executor.
+     */
+    private static final class DefaultExecutor {
+        static final ExecutorService INSTANCE = PathUtils.newDaemonPool(DEFAULT_POOL_SIZE, "asyncFileReader");
+    }
+}
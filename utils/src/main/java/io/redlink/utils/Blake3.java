@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Pure-Java implementation of the <a href="https://github.com/BLAKE3-team/BLAKE3-specs">BLAKE3</a>
+ * cryptographic hash function.
+ *
+ * <p>Supports the three modes of BLAKE3 ({@link #newInstance() hash}, {@link #newKeyedInstance(byte[]) keyed_hash}
+ * and {@link #newKeyDerivationInstance(String) derive_key}) and extendable output ({@link #digest(int)}).
+ * Instances are incremental and <strong>not</strong> thread-safe.</p>
+ * <p>BLAKE3 is a Merkle tree over 1 KiB chunks, so large files can be hashed in parallel, see
+ * {@link #digest(Path, ForkJoinPool)}. The result is identical to sequential hashing.</p>
+ *
+ * @see HashUtils.HashAlg#BLAKE3
+ */
+public final class Blake3 {
+
+    /**
+     * Length of the key for {@link #newKeyedInstance(byte[]) keyed hashing}.
+     */
+    public static final int KEY_LENGTH = 32;
+    /**
+     * Default length of the digest.
+     */
+    public static final int DIGEST_LENGTH = 32;
+
+    static final int CHUNK_LENGTH = 1024;
+    static final int BLOCK_LENGTH = 64;
+    /**
+     * Subtrees of at most this size are hashed sequentially in parallel mode.
+     */
+    static final long PARALLEL_LEAF_SIZE = 256L * CHUNK_LENGTH;
+
+    private static final int CHUNK_START = 1;
+    private static final int CHUNK_END = 1 << 1;
+    private static final int PARENT = 1 << 2;
+    private static final int ROOT = 1 << 3;
+    private static final int KEYED_HASH = 1 << 4;
+    private static final int DERIVE_KEY_CONTEXT = 1 << 5;
+    private static final int DERIVE_KEY_MATERIAL = 1 << 6;
+
+    private static final int[] IV = {
+            0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+    private static final int[] MESSAGE_PERMUTATION = {2, 6, 3, 10, 7, 0, 4, 13, 1, 11, 12, 5, 9, 14, 15, 8};
+    /**
+     * The message word order of every round, i.e. {@link #MESSAGE_PERMUTATION} applied {@code round} times.
+     */
+    private static final int[][] SCHEDULE = new int[7][16];
+    /**
+     * Max. depth of the chaining-value stack: 2^54 chunks are 2^64 bytes.
+     */
+    private static final int MAX_DEPTH = 54;
+
+    static {
+        for (int i = 0; i < 16; i++) {
+            SCHEDULE[0][i] = i;
+        }
+        for (int r = 1; r < SCHEDULE.length; r++) {
+            for (int i = 0; i < 16; i++) {
+                SCHEDULE[r][i] = SCHEDULE[r - 1][MESSAGE_PERMUTATION[i]];
+            }
+        }
+    }
+
+    private final int[] key;
+    private final int flags;
+    /**
+     * Counter of the first chunk, non-zero when hashing a subtree in parallel mode.
+     */
+    private final long chunkOffset;
+
+    // state of the current chunk
+    private final int[] chunkCv = new int[8];
+    private long chunkCounter = 0;
+    private final byte[] block = new byte[BLOCK_LENGTH];
+    private int blockLength = 0;
+    private int blocksCompressed = 0;
+
+    // chaining values of completed subtrees
+    private final int[] cvStack = new int[MAX_DEPTH * 8];
+    private int cvStackSize = 0;
+
+    // scratch
+    private final int[] words = new int[16];
+
+    private Blake3(int[] key, int flags, long chunkOffset) {
+        this.key = key;
+        this.flags = flags;
+        this.chunkOffset = chunkOffset;
+        System.arraycopy(key, 0, chunkCv, 0, 8);
+    }
+
+    private Blake3(Blake3 other) {
+        this.key = other.key;
+        this.flags = other.flags;
+        this.chunkOffset = other.chunkOffset;
+        System.arraycopy(other.chunkCv, 0, chunkCv, 0, 8);
+        this.chunkCounter = other.chunkCounter;
+        System.arraycopy(other.block, 0, block, 0, BLOCK_LENGTH);
+        this.blockLength = other.blockLength;
+        this.blocksCompressed = other.blocksCompressed;
+        System.arraycopy(other.cvStack, 0, cvStack, 0, other.cvStackSize * 8);
+        this.cvStackSize = other.cvStackSize;
+    }
+
+    /**
+     * Create a hasher for the default (unkeyed) hash mode.
+     */
+    public static Blake3 newInstance() {
+        return new Blake3(IV, 0, 0);
+    }
+
+    /**
+     * Create a hasher for the keyed hash mode (a MAC).
+     * @param key the key, exactly {@link #KEY_LENGTH} bytes
+     */
+    public static Blake3 newKeyedInstance(byte[] key) {
+        return new Blake3(keyWords(key), KEYED_HASH, 0);
+    }
+
+    /**
+     * Create a hasher for the key derivation mode.
+     * @param context the (hardcoded, globally unique, application-specific) context string
+     */
+    public static Blake3 newKeyDerivationInstance(String context) {
+        final Blake3 contextHasher = new Blake3(IV, DERIVE_KEY_CONTEXT, 0);
+        contextHasher.update(context.getBytes(StandardCharsets.UTF_8));
+        return new Blake3(keyWords(contextHasher.digest()), DERIVE_KEY_MATERIAL, 0);
+    }
+
+    /**
+     * Calculate the BLAKE3 hash of a file, hashing subtrees of large files in parallel.
+     * @param file the file to hash
+     * @param pool the pool used to hash in parallel
+     * @return the digest, {@link #DIGEST_LENGTH} bytes
+     */
+    public static byte[] digest(Path file, ForkJoinPool pool) throws IOException {
+        return digest(file, DIGEST_LENGTH, pool);
+    }
+
+    /**
+     * Calculate the BLAKE3 hash of a file with extended output, hashing subtrees of large files in parallel.
+     * @param file the file to hash
+     * @param length the length of the digest
+     * @param pool the pool used to hash in parallel
+     * @return the digest
+     */
+    public static byte[] digest(Path file, int length, ForkJoinPool pool) throws IOException {
+        return digest(file, IV, 0, length, pool);
+    }
+
+    /**
+     * Calculate the keyed BLAKE3 hash of a file, hashing subtrees of large files in parallel.
+     * @param key the key, exactly {@link #KEY_LENGTH} bytes
+     * @param file the file to hash
+     * @param pool the pool used to hash in parallel
+     * @return the digest, {@link #DIGEST_LENGTH} bytes
+     */
+    public static byte[] keyedDigest(byte[] key, Path file, ForkJoinPool pool) throws IOException {
+        return digest(file, keyWords(key), KEYED_HASH, DIGEST_LENGTH, pool);
+    }
+
+    public Blake3 update(byte b) {
+        return update(new byte[]{b}, 0, 1);
+    }
+
+    public Blake3 update(byte[] bytes) {
+        return update(bytes, 0, bytes.length);
+    }
+
+    public Blake3 update(byte[] bytes, int offset, int length) {
+        int off = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            if (chunkLength() == CHUNK_LENGTH) {
+                completeChunk();
+            }
+            if (blockLength == BLOCK_LENGTH) {
+                // more input, so the buffered block is not the last one of the chunk
+                compressBlock(block, 0);
+            }
+            if (blockLength == 0) {
+                // compress full blocks directly from the input, keeping the last block of the chunk buffered
+                while (remaining > BLOCK_LENGTH && blocksCompressed < CHUNK_LENGTH / BLOCK_LENGTH - 1) {
+                    compressBlock(bytes, off);
+                    off += BLOCK_LENGTH;
+                    remaining -= BLOCK_LENGTH;
+                }
+            }
+            final int n = Math.min(BLOCK_LENGTH - blockLength, remaining);
+            System.arraycopy(bytes, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            remaining -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Hash the remaining content of the buffer, the buffer is consumed.
+     */
+    public Blake3 update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        } else {
+            final byte[] chunk = new byte[Math.min(buffer.remaining(), 16 * CHUNK_LENGTH)];
+            while (buffer.hasRemaining()) {
+                final int n = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, n);
+                update(chunk, 0, n);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * The digest of the data hashed so far. Does not modify the state, more data can be added afterwards.
+     * @return the digest, {@link #DIGEST_LENGTH} bytes
+     */
+    public byte[] digest() {
+        return digest(DIGEST_LENGTH);
+    }
+
+    /**
+     * The extended output of the data hashed so far. Does not modify the state, more data can be added afterwards.
+     * Shorter outputs are prefixes of longer outputs.
+     * @param length the number of bytes to produce
+     */
+    public byte[] digest(int length) {
+        final byte[] out = new byte[length];
+        digest(out, 0, length);
+        return out;
+    }
+
+    /**
+     * Write the extended output of the data hashed so far into a buffer.
+     * Does not modify the state, more data can be added afterwards.
+     * @param out the buffer
+     * @param offset the position in the buffer
+     * @param length the number of bytes to produce
+     */
+    public void digest(byte[] out, int offset, int length) {
+        final Node root = finalNode();
+        rootOutput(root.cv, root.block, root.blockLength, root.flags, out, offset, length);
+    }
+
+    /**
+     * Reset to the initial state (keeping the key and mode).
+     */
+    public void reset() {
+        System.arraycopy(key, 0, chunkCv, 0, 8);
+        chunkCounter = 0;
+        blockLength = 0;
+        blocksCompressed = 0;
+        cvStackSize = 0;
+    }
+
+    /**
+     * A copy of this hasher, including its current state.
+     */
+    Blake3 copy() {
+        return new Blake3(this);
+    }
+
+    private int chunkLength() {
+        return blocksCompressed * BLOCK_LENGTH + blockLength;
+    }
+
+    private void compressBlock(byte[] bytes, int offset) {
+        toWords(bytes, offset, words);
+        compress(chunkCv, 0, words, chunkOffset + chunkCounter, BLOCK_LENGTH,
+                flags | (blocksCompressed == 0 ? CHUNK_START : 0), chunkCv, 0, false);
+        blocksCompressed++;
+        blockLength = 0;
+    }
+
+    /**
+     * Complete the current (full) chunk, merge its chaining value into the stack and start the next chunk.
+     */
+    private void completeChunk() {
+        final int[] cv = new int[8];
+        chunkOutput().chainingValue(cv);
+        // merge completed subtrees, one for each trailing 0-bit in the total number of chunks
+        long totalChunks = chunkCounter + 1;
+        while ((totalChunks & 1) == 0) {
+            cvStackSize--;
+            parentChainingValue(cvStack, cvStackSize * 8, cv, cv);
+            totalChunks >>= 1;
+        }
+        System.arraycopy(cv, 0, cvStack, cvStackSize * 8, 8);
+        cvStackSize++;
+
+        chunkCounter++;
+        System.arraycopy(key, 0, chunkCv, 0, 8);
+        blockLength = 0;
+        blocksCompressed = 0;
+    }
+
+    private Node chunkOutput() {
+        final int[] blockWords = new int[16];
+        final byte[] padded = Arrays.copyOf(block, BLOCK_LENGTH);
+        Arrays.fill(padded, blockLength, BLOCK_LENGTH, (byte) 0);
+        toWords(padded, 0, blockWords);
+        return new Node(chunkCv.clone(), blockWords, chunkOffset + chunkCounter, blockLength,
+                flags | (blocksCompressed == 0 ? CHUNK_START : 0) | CHUNK_END);
+    }
+
+    /**
+     * The root node of the data hashed so far.
+     */
+    private Node finalNode() {
+        Node node = chunkOutput();
+        final int[] cv = new int[8];
+        for (int i = cvStackSize - 1; i >= 0; i--) {
+            node.chainingValue(cv);
+            final int[] blockWords = new int[16];
+            System.arraycopy(cvStack, i * 8, blockWords, 0, 8);
+            System.arraycopy(cv, 0, blockWords, 8, 8);
+            node = new Node(key, blockWords, 0, BLOCK_LENGTH, flags | PARENT);
+        }
+        return node;
+    }
+
+    /**
+     * The chaining value of the data hashed so far, as a (non-root) subtree.
+     */
+    int[] subtreeChainingValue() {
+        final int[] cv = new int[8];
+        finalNode().chainingValue(cv);
+        return cv;
+    }
+
+    private void parentChainingValue(int[] left, int leftOffset, int[] right, int[] out) {
+        final int[] blockWords = new int[16];
+        System.arraycopy(left, leftOffset, blockWords, 0, 8);
+        System.arraycopy(right, 0, blockWords, 8, 8);
+        compress(key, 0, blockWords, 0, BLOCK_LENGTH, flags | PARENT, out, 0, false);
+    }
+
+    private static void rootOutput(int[] cv, int[] blockWords, int blockLength, int flags, byte[] out, int offset, int length) {
+        final int[] state = new int[16];
+        final byte[] bytes = new byte[BLOCK_LENGTH];
+        long counter = 0;
+        int pos = offset;
+        final int end = offset + length;
+        while (pos < end) {
+            compress(cv, 0, blockWords, counter++, blockLength, flags | ROOT, state, 0, true);
+            for (int i = 0; i < 16; i++) {
+                putIntLE(bytes, 4 * i, state[i]);
+            }
+            final int n = Math.min(BLOCK_LENGTH, end - pos);
+            System.arraycopy(bytes, 0, out, pos, n);
+            pos += n;
+        }
+    }
+
+    /**
+     * The BLAKE3 compression function.
+     * @param cv the input chaining value (8 words, starting at {@code cvOffset})
+     * @param m the message block (16 words)
+     * @param counter the chunk- or output-block-counter
+     * @param blockLength the number of bytes in the block
+     * @param flags the domain flags
+     * @param out receives the output chaining value (8 words) or, if {@code extended}, the full 16 words of output
+     * @param outOffset the position in {@code out}
+     * @param extended produce 16 instead of 8 words of output
+     */
+    static void compress(int[] cv, int cvOffset, int[] m, long counter, int blockLength, int flags,
+                         int[] out, int outOffset, boolean extended) {
+        final int c0 = cv[cvOffset], c1 = cv[cvOffset + 1], c2 = cv[cvOffset + 2], c3 = cv[cvOffset + 3];
+        final int c4 = cv[cvOffset + 4], c5 = cv[cvOffset + 5], c6 = cv[cvOffset + 6], c7 = cv[cvOffset + 7];
+        int s0 = c0, s1 = c1, s2 = c2, s3 = c3, s4 = c4, s5 = c5, s6 = c6, s7 = c7;
+        int s8 = IV[0], s9 = IV[1], s10 = IV[2], s11 = IV[3];
+        int s12 = (int) counter, s13 = (int) (counter >>> 32), s14 = blockLength, s15 = flags;
+        for (int round = 0; round < 7; round++) {
+            final int[] schedule = SCHEDULE[round];
+            // mix the columns
+            s0 += s4 + m[schedule[0]];
+            s12 = Integer.rotateRight(s12 ^ s0, 16);
+            s8 += s12;
+            s4 = Integer.rotateRight(s4 ^ s8, 12);
+            s0 += s4 + m[schedule[1]];
+            s12 = Integer.rotateRight(s12 ^ s0, 8);
+            s8 += s12;
+            s4 = Integer.rotateRight(s4 ^ s8, 7);
+            s1 += s5 + m[schedule[2]];
+            s13 = Integer.rotateRight(s13 ^ s1, 16);
+            s9 += s13;
+            s5 = Integer.rotateRight(s5 ^ s9, 12);
+            s1 += s5 + m[schedule[3]];
+            s13 = Integer.rotateRight(s13 ^ s1, 8);
+            s9 += s13;
+            s5 = Integer.rotateRight(s5 ^ s9, 7);
+            s2 += s6 + m[schedule[4]];
+            s14 = Integer.rotateRight(s14 ^ s2, 16);
+            s10 += s14;
+            s6 = Integer.rotateRight(s6 ^ s10, 12);
+            s2 += s6 + m[schedule[5]];
+            s14 = Integer.rotateRight(s14 ^ s2, 8);
+            s10 += s14;
+            s6 = Integer.rotateRight(s6 ^ s10, 7);
+            s3 += s7 + m[schedule[6]];
+            s15 = Integer.rotateRight(s15 ^ s3, 16);
+            s11 += s15;
+            s7 = Integer.rotateRight(s7 ^ s11, 12);
+            s3 += s7 + m[schedule[7]];
+            s15 = Integer.rotateRight(s15 ^ s3, 8);
+            s11 += s15;
+            s7 = Integer.rotateRight(s7 ^ s11, 7);
+            // mix the diagonals
+            s0 += s5 + m[schedule[8]];
+            s15 = Integer.rotateRight(s15 ^ s0, 16);
+            s10 += s15;
+            s5 = Integer.rotateRight(s5 ^ s10, 12);
+            s0 += s5 + m[schedule[9]];
+            s15 = Integer.rotateRight(s15 ^ s0, 8);
+            s10 += s15;
+            s5 = Integer.rotateRight(s5 ^ s10, 7);
+            s1 += s6 + m[schedule[10]];
+            s12 = Integer.rotateRight(s12 ^ s1, 16);
+            s11 += s12;
+            s6 = Integer.rotateRight(s6 ^ s11, 12);
+            s1 += s6 + m[schedule[11]];
+            s12 = Integer.rotateRight(s12 ^ s1, 8);
+            s11 += s12;
+            s6 = Integer.rotateRight(s6 ^ s11, 7);
+            s2 += s7 + m[schedule[12]];
+            s13 = Integer.rotateRight(s13 ^ s2, 16);
+            s8 += s13;
+            s7 = Integer.rotateRight(s7 ^ s8, 12);
+            s2 += s7 + m[schedule[13]];
+            s13 = Integer.rotateRight(s13 ^ s2, 8);
+            s8 += s13;
+            s7 = Integer.rotateRight(s7 ^ s8, 7);
+            s3 += s4 + m[schedule[14]];
+            s14 = Integer.rotateRight(s14 ^ s3, 16);
+            s9 += s14;
+            s4 = Integer.rotateRight(s4 ^ s9, 12);
+            s3 += s4 + m[schedule[15]];
+            s14 = Integer.rotateRight(s14 ^ s3, 8);
+            s9 += s14;
+            s4 = Integer.rotateRight(s4 ^ s9, 7);
+        }
+        out[outOffset] = s0 ^ s8;
+        out[outOffset + 1] = s1 ^ s9;
+        out[outOffset + 2] = s2 ^ s10;
+        out[outOffset + 3] = s3 ^ s11;
+        out[outOffset + 4] = s4 ^ s12;
+        out[outOffset + 5] = s5 ^ s13;
+        out[outOffset + 6] = s6 ^ s14;
+        out[outOffset + 7] = s7 ^ s15;
+        if (extended) {
+            out[outOffset + 8] = s8 ^ c0;
+            out[outOffset + 9] = s9 ^ c1;
+            out[outOffset + 10] = s10 ^ c2;
+            out[outOffset + 11] = s11 ^ c3;
+            out[outOffset + 12] = s12 ^ c4;
+            out[outOffset + 13] = s13 ^ c5;
+            out[outOffset + 14] = s14 ^ c6;
+            out[outOffset + 15] = s15 ^ c7;
+        }
+    }
+
+    private static void toWords(byte[] bytes, int offset, int[] words) {
+        for (int i = 0; i < 16; i++) {
+            words[i] = getIntLE(bytes, offset + 4 * i);
+        }
+    }
+
+    private static int getIntLE(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16 | bytes[offset + 3] << 24;
+    }
+
+    private static void putIntLE(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static int[] keyWords(byte[] key) {
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("BLAKE3 requires a key of " + KEY_LENGTH + " bytes, got " + key.length);
+        }
+        final int[] words = new int[8];
+        for (int i = 0; i < 8; i++) {
+            words[i] = getIntLE(key, 4 * i);
+        }
+        return words;
+    }
+
+    /**
+     * The number of bytes in the left subtree of a node covering {@code length} bytes:
+     * the largest power of 2 chunks, leaving at least one byte for the right subtree.
+     */
+    static long leftLength(long length) {
+        final long fullChunks = (length - 1) / CHUNK_LENGTH;
+        return Long.highestOneBit(fullChunks) * CHUNK_LENGTH;
+    }
+
+    private static byte[] digest(Path file, int[] key, int flags, int length, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final byte[] out = new byte[length];
+            if (size <= PARALLEL_LEAF_SIZE) {
+                final Blake3 hasher = new Blake3(key, flags, 0);
+                FileChannels.read(channel, hasher::update);
+                hasher.digest(out, 0, length);
+            } else {
+                final int[] children;
+                try {
+                    children = pool.invoke(ForkJoinTask.adapt(() -> children(channel, key, flags, 0, size)));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                rootOutput(key, children, BLOCK_LENGTH, flags | PARENT, out, 0, length);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Calculate the chaining values of both children of a node in parallel, must be called from within the pool.
+     * @return the concatenated chaining values of the left and right child
+     */
+    private static int[] children(FileChannel channel, int[] key, int flags, long position, long length) {
+        final long left = leftLength(length);
+        final SubtreeTask rightTask = new SubtreeTask(channel, key, flags, position + left, length - left);
+        rightTask.fork();
+        final int[] children = new int[16];
+        System.arraycopy(new SubtreeTask(channel, key, flags, position, left).compute(), 0, children, 0, 8);
+        System.arraycopy(rightTask.join(), 0, children, 8, 8);
+        return children;
+    }
+
+    /**
+     * An output node of the tree: the input to the compression function, before the counter (for root nodes)
+     * and the {@link #ROOT} flag are applied.
+     */
+    private static final class Node {
+        private final int[] cv;
+        private final int[] block;
+        private final long counter;
+        private final int blockLength;
+        private final int flags;
+
+        Node(int[] cv, int[] block, long counter, int blockLength, int flags) {
+            this.cv = cv;
+            this.block = block;
+            this.counter = counter;
+            this.blockLength = blockLength;
+            this.flags = flags;
+        }
+
+        void chainingValue(int[] out) {
+            compress(cv, 0, block, counter, blockLength, flags, out, 0, false);
+        }
+    }
+
+    /**
+     * Calculates the chaining value of a subtree, splitting large subtrees.
+     */
+    private static final class SubtreeTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final int[] key;
+        private final int flags;
+        private final long position;
+        private final long length;
+
+        SubtreeTask(FileChannel channel, int[] key, int flags, long position, long length) {
+            this.channel = channel;
+            this.key = key;
+            this.flags = flags;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (length <= PARALLEL_LEAF_SIZE) {
+                final Blake3 hasher = new Blake3(key, flags, position / CHUNK_LENGTH);
+                try {
+                    FileChannels.read(channel, position, length, hasher::update);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return hasher.subtreeChainingValue();
+            }
+            final int[] children = children(channel, key, flags, position, length);
+            final int[] cv = new int[8];
+            compress(key, 0, children, 0, BLOCK_LENGTH, flags | PARENT, cv, 0, false);
+            return cv;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Adapts {@link Blake3} to the {@link MessageDigest}-API, so {@link HashUtils.HashAlg#BLAKE3} can be used like
+ * any other {@link HashUtils.HashAlg}.
+ */
+final class Blake3Digest extends MessageDigest implements Cloneable {
+
+    static final String ALGORITHM = "BLAKE3";
+
+    private Blake3 hasher = Blake3.newInstance();
+
+    Blake3Digest() {
+        super(ALGORITHM);
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return Blake3.DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        hasher.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        hasher.update(input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        hasher.update(input);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        final byte[] digest = hasher.digest();
+        hasher.reset();
+        return digest;
+    }
+
+    @Override
+    protected void engineReset() {
+        hasher.reset();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        final Blake3Digest clone = (Blake3Digest) super.clone();
+        clone.hasher = hasher.copy();
+        return clone;
+    }
+}
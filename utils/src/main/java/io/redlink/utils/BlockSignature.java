@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The block-signature of a (base) file, as used by rsync-style delta detection.
+ *
+ * <p>The data is split into blocks of {@link #getBlockSize() blockSize} bytes (the last block may be shorter).
+ * For every block a weak {@link RollingChecksum rolling checksum} and a strong {@link HashUtils.HashAlg digest}
+ * is calculated. Using the signature, a {@link #delta(InputStream) delta} of a new version of the data
+ * can be calculated, without access to the base data: blocks that are unchanged (even if moved) are only
+ * referenced, everything else is included as literal data.</p>
+ *
+ * @see Delta
+ * @see RollingChecksum
+ */
+public final class BlockSignature {
+
+    /**
+     * Max size of a single literal in a {@link Delta}.
+     */
+    static final int MAX_LITERAL_SIZE = 64 * 1024;
+
+    private final int blockSize;
+    private final HashUtils.HashAlg algorithm;
+    private final List<Block> blocks;
+    /**
+     * The distinct weak checksums (32 bit) of the blocks, sorted for a binary search.
+     */
+    private final int[] checksums;
+    /**
+     * The blocks with the checksum at the same index in {@link #checksums}.
+     */
+    private final Block[][] blocksByChecksum;
+    /**
+     * A bit for the lower 16 bits of every checksum, so most misses are rejected without a search.
+     * The lookup runs for every byte of the new data, so it must not allocate (e.g. by boxing the checksum).
+     */
+    private final long[] checksumFilter = new long[(1 << 16) / Long.SIZE];
+
+    private BlockSignature(int blockSize, HashUtils.HashAlg algorithm, List<Block> blocks) {
+        this.blockSize = blockSize;
+        this.algorithm = algorithm;
+        this.blocks = Collections.unmodifiableList(blocks);
+
+        final Block[] sorted = blocks.toArray(new Block[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(BlockSignature::weakChecksum));
+        final int[] distinct = new int[sorted.length];
+        final Block[][] grouped = new Block[sorted.length][];
+        int count = 0;
+        for (int from = 0, to; from < sorted.length; from = to) {
+            final int weak = weakChecksum(sorted[from]);
+            to = from + 1;
+            while (to < sorted.length && weakChecksum(sorted[to]) == weak) {
+                to++;
+            }
+            distinct[count] = weak;
+            grouped[count] = Arrays.copyOfRange(sorted, from, to);
+            count++;
+            checksumFilter[(weak & 0xFFFF) >>> 6] |= 1L << weak;
+        }
+        this.checksums = Arrays.copyOf(distinct, count);
+        this.blocksByChecksum = Arrays.copyOf(grouped, count);
+    }
+
+    private static int weakChecksum(Block block) {
+        return (int) block.getChecksum();
+    }
+
+    /**
+     * Calculate the signature of a file.
+     * @param file the file
+     * @param blockSize the block size
+     * @param algorithm the strong hash algorithm
+     */
+    public static BlockSignature calculate(Path file, int blockSize, HashUtils.HashAlg algorithm) throws IOException {
+        try (InputStream is = Files.newInputStream(file)) {
+            return calculate(is, blockSize, algorithm);
+        }
+    }
+
+    /**
+     * Calculate the signature of an {@link InputStream}.
+     * @param is the data, the stream will be consumed, but <strong>not</strong> closed.
+     * @param blockSize the block size
+     * @param algorithm the strong hash algorithm
+     */
+    public static BlockSignature calculate(InputStream is, int blockSize, HashUtils.HashAlg algorithm) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        final List<Block> blocks = new ArrayList<>();
+        final RollingChecksum checksum = new RollingChecksum();
+        final MessageDigest digest = algorithm.createDigest();
+        final byte[] block = new byte[blockSize];
+        long offset = 0;
+        int read;
+        while ((read = is.readNBytes(block, 0, blockSize)) > 0) {
+            checksum.reset();
+            checksum.update(block, 0, read);
+            digest.update(block, 0, read);
+            blocks.add(new Block(blocks.size(), offset, read, checksum.getValue(), digest.digest()));
+            offset += read;
+        }
+        return new BlockSignature(blockSize, algorithm, blocks);
+    }
+
+    /**
+     * The size of the blocks.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * The strong hash algorithm.
+     */
+    public HashUtils.HashAlg getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The blocks of the base data, in order.
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * The length of the base data.
+     */
+    public long getLength() {
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+        final Block last = blocks.get(blocks.size() - 1);
+        return last.getOffset() + last.getLength();
+    }
+
+    /**
+     * Calculate the {@link Delta} between the base data (described by this signature) and a new version.
+     * @param file the new version
+     */
+    public Delta delta(Path file) throws IOException {
+        try (InputStream is = Files.newInputStream(file)) {
+            return delta(is);
+        }
+    }
+
+    /**
+     * Calculate the {@link Delta} between the base data (described by this signature) and a new version.
+     * @param is the new version, the stream will be consumed, but <strong>not</strong> closed.
+     */
+    public Delta delta(InputStream is) throws IOException {
+        return new DeltaCalculator(is).calculate();
+    }
+
+    /**
+     * A single block of the base data.
+     */
+    public static final class Block {
+        private final int index;
+        private final long offset;
+        private final int length;
+        private final long checksum;
+        private final byte[] digest;
+
+        Block(int index, long offset, int length, long checksum, byte[] digest) {
+            this.index = index;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+            this.digest = digest;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * The weak (rolling) checksum of the block, see {@link RollingChecksum}.
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * The strong digest of the block, hex-encoded.
+         */
+        public String getHash() {
+            return HexUtils.encode(digest);
+        }
+
+        /**
+         * The strong digest of the block.
+         */
+        public byte[] getDigest() {
+            return digest.clone();
+        }
+    }
+
+    /**
+     * Slides a window over the new data, looking for blocks of the base data.
+     */
+    private class DeltaCalculator {
+        private final InputStream is;
+        private final byte[] buffer = new byte[MAX_LITERAL_SIZE + 2 * blockSize];
+        private final RollingChecksum checksum = new RollingChecksum();
+        private final MessageDigest digest = algorithm.createDigest();
+        private final List<Delta.Instruction> instructions = new ArrayList<>();
+
+        /** start of the pending literal */
+        private int literalStart = 0;
+        /** start of the window */
+        private int start = 0;
+        /** end of the valid data in the buffer */
+        private int end = 0;
+        private boolean eof = false;
+
+        DeltaCalculator(InputStream is) {
+            this.is = is;
+        }
+
+        Delta calculate() throws IOException {
+            int windowLength = fillWindow();
+            while (windowLength > 0) {
+                final Block match = findMatch(windowLength);
+                if (match != null) {
+                    flushLiteral();
+                    instructions.add(new Delta.Copy(match.getOffset(), match.getLength()));
+                    start += windowLength;
+                    literalStart = start;
+                    windowLength = fillWindow();
+                } else if (windowLength == blockSize && ensureAvailable(start + windowLength + 1)) {
+                    checksum.roll(buffer[start], buffer[start + windowLength]);
+                    start++;
+                    if (start - literalStart >= MAX_LITERAL_SIZE) {
+                        flushLiteral();
+                    }
+                } else {
+                    // end of data reached, the remaining window is literal
+                    start += windowLength;
+                    windowLength = 0;
+                }
+            }
+            flushLiteral();
+            return new Delta(instructions);
+        }
+
+        private Block findMatch(int windowLength) {
+            final int weak = (int) checksum.getValue();
+            if ((checksumFilter[(weak & 0xFFFF) >>> 6] & (1L << weak)) == 0) {
+                return null;
+            }
+            final int index = Arrays.binarySearch(checksums, weak);
+            if (index < 0) {
+                return null;
+            }
+            byte[] strong = null;
+            for (Block candidate : blocksByChecksum[index]) {
+                if (candidate.getLength() == windowLength) {
+                    if (strong == null) {
+                        digest.update(buffer, start, windowLength);
+                        strong = digest.digest();
+                    }
+                    if (MessageDigest.isEqual(strong, candidate.digest)) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Load a new window starting at {@link #start} and initialize the checksum.
+         * @return the length of the window, less than {@link #blockSize} at the end of the data
+         */
+        private int fillWindow() throws IOException {
+            ensureAvailable(start + blockSize);
+            final int windowLength = Math.min(blockSize, end - start);
+            checksum.reset();
+            checksum.update(buffer, start, windowLength);
+            return windowLength;
+        }
+
+        /**
+         * Make sure the buffer contains data up to (excluding) {@code position}, compacting the buffer if required.
+         * @return {@code false} if the end of the data is reached before
+         */
+        private boolean ensureAvailable(int position) throws IOException {
+            if (position <= end) {
+                return true;
+            }
+            int required = position;
+            if (required > buffer.length) {
+                final int shift = literalStart;
+                System.arraycopy(buffer, shift, buffer, 0, end - shift);
+                literalStart -= shift;
+                start -= shift;
+                end -= shift;
+                required -= shift;
+            }
+            while (!eof && end < required) {
+                final int read = is.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    end += read;
+                }
+            }
+            return end >= required;
+        }
+
+        /**
+         * Add the pending literal, split into literals of at most {@link #MAX_LITERAL_SIZE} bytes.
+         */
+        private void flushLiteral() {
+            while (start > literalStart) {
+                final byte[] literal = new byte[Math.min(start - literalStart, MAX_LITERAL_SIZE)];
+                System.arraycopy(buffer, literalStart, literal, 0, literal.length);
+                instructions.add(new Delta.Literal(literal));
+                literalStart += literal.length;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Lookup-or-calculate of file digests using a {@link DigestCache}.
+ */
+final class CachedDigests {
+
+    @FunctionalInterface
+    interface DigestCalculator {
+        byte[] calculate(Path file) throws IOException;
+    }
+
+    private CachedDigests() {}
+
+    /**
+     * Get the digest of the file from the cache, or calculate (and cache) it.
+     * The digest is only cached if the file did not change while it was calculated.
+     */
+    static byte[] digest(DigestCache cache, Path file, String algorithm, DigestCalculator calculator) throws IOException {
+        final BasicFileAttributes before = Files.readAttributes(file, BasicFileAttributes.class);
+        final byte[] cached = cache.get(file, before, algorithm);
+        if (cached != null) {
+            return cached;
+        }
+        final byte[] digest = calculator.calculate(file);
+        final BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+        if (isUnchanged(before, after)) {
+            cache.put(file, after, algorithm, digest);
+        }
+        return digest;
+    }
+
+    static boolean isUnchanged(BasicFileAttributes before, BasicFileAttributes after) {
+        return before.size() == after.size()
+                && before.lastModifiedTime().equals(after.lastModifiedTime())
+                && Objects.equals(before.fileKey(), after.fileKey());
+    }
+
+    static byte[] toBytes(long checksum) {
+        return new byte[]{(byte) (checksum >>> 24), (byte) (checksum >>> 16), (byte) (checksum >>> 8), (byte) checksum};
+    }
+
+    static long toChecksum(byte[] bytes) {
+        return ((bytes[0] & 0xffL) << 24) | ((bytes[1] & 0xffL) << 16) | ((bytes[2] & 0xffL) << 8) | (bytes[3] & 0xffL);
+    }
+}
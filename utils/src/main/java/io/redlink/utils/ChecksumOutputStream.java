@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * An {@link OutputStream} that calculates a checksum of the data written through it.
+ *
+ * @see ChecksumUtils
+ */
+public class ChecksumOutputStream extends FilterOutputStream {
+
+    private final Checksum checksum;
+    private long count = 0;
+
+    /**
+     * Create a ChecksumOutputStream.
+     * @param out the underlying OutputStream
+     * @param alg the checksum algorithm
+     */
+    public ChecksumOutputStream(OutputStream out, ChecksumUtils.ChecksumAlg alg) {
+        super(out);
+        this.checksum = alg.createChecksum();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        checksum.update(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        checksum.update(b, off, len);
+        count += len;
+    }
+
+    /**
+     * The number of bytes written.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The checksum of the data written so far, hex-encoded as in {@link ChecksumUtils#crc32(byte[])}.
+     */
+    public String getChecksum() {
+        return ChecksumUtils.toHex(checksum.getValue());
+    }
+
+    /**
+     * The checksum of the data written so far, as in {@link ChecksumUtils#crc32Value(byte[])}.
+     */
+    public long getValue() {
+        return checksum.getValue();
+    }
+}
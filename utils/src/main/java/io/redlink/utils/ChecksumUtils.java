@@ -18,30 +18,76 @@ package io.redlink.utils;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.zip.Adler32;
 import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
 import java.util.zip.Checksum;
 
 /**
  * Utilities to calculate checksums.
  *
  * @see CRC32
+ * @see CRC32C
  * @see Adler32
  */
 public final class ChecksumUtils {
 
+    /**
+     * Supported Checksum Algorithms
+     */
+    public enum ChecksumAlg {
+        /**
+         * @see java.util.zip.CRC32
+         */
+        CRC32,
+        /**
+         * @see java.util.zip.CRC32C
+         */
+        CRC32C,
+        /**
+         * @see java.util.zip.Adler32
+         */
+        ADLER32;
+
+        Checksum createChecksum() {
+            switch (this) {
+                case CRC32:
+                    return new java.util.zip.CRC32();
+                case CRC32C:
+                    return new java.util.zip.CRC32C();
+                case ADLER32:
+                    return new Adler32();
+                default:
+                    throw new IllegalStateException("Unknown ChecksumAlg " + this);
+            }
+        }
+    }
+
+    /**
+     * Size of the segments processed in parallel, see {@link #crc32(Path, ForkJoinPool)}.
+     */
+    static final long PARALLEL_SEGMENT_SIZE = 16L * 1024L * 1024L;
+
     private ChecksumUtils() {}
 
     public static String crc32(String input) {
-        return crc32(input.getBytes(StandardCharsets.UTF_8));
+        return toHex(crc32Value(input));
     }
 
     public static String crc32(byte[] bytes) {
-        return checksum(new CRC32(), bytes);
+        return toHex(crc32Value(bytes));
     }
 
     public  static String crc32(File file) throws IOException {
@@ -49,9 +95,7 @@ public final class ChecksumUtils {
     }
 
     public static String crc32(Path file) throws IOException {
-        try (InputStream is = Files.newInputStream(file, StandardOpenOption.READ)) {
-            return crc32(is);
-        }
+        return toHex(crc32Value(file));
     }
 
     /**
@@ -60,15 +104,250 @@ public final class ChecksumUtils {
      *                    but <strong>not</strong> closed.
      */
     public static String crc32(InputStream inputStream) throws IOException {
+        return toHex(crc32Value(inputStream));
+    }
+
+    /**
+     * Calculate {@link CRC32}-Checksum of the remaining content of a {@link ByteBuffer}.
+     * @param buffer the buffer to build the checksum on. The position of the buffer is <strong>not</strong> modified.
+     */
+    public static String crc32(ByteBuffer buffer) {
+        return toHex(crc32Value(buffer));
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of a String (UTF-8) as numeric value.
+     * @see #crc32(String)
+     */
+    public static long crc32Value(String input) {
+        return checksum(new CRC32(), input);
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of a byte-array as numeric value.
+     * @see #crc32(byte[])
+     */
+    public static long crc32Value(byte[] bytes) {
+        return checksum(new CRC32(), bytes);
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of a File as numeric value.
+     * @see #crc32(File)
+     */
+    public static long crc32Value(File file) throws IOException {
+        return crc32Value(file.toPath());
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of a file as numeric value.
+     * @see #crc32(Path)
+     */
+    public static long crc32Value(Path file) throws IOException {
+        return checksum(new CRC32(), file);
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of an {@link InputStream} as numeric value.
+     * @param inputStream the InputStream to build the checksum on. The stream will be consumed,
+     *                    but <strong>not</strong> closed.
+     * @see #crc32(InputStream)
+     */
+    public static long crc32Value(InputStream inputStream) throws IOException {
         return checksum(new CRC32(), inputStream);
     }
 
+    /**
+     * Calculate the {@link CRC32}-Checksum of the remaining content of a {@link ByteBuffer} as numeric value.
+     * @see #crc32(ByteBuffer)
+     */
+    public static long crc32Value(ByteBuffer buffer) {
+        return checksum(new CRC32(), buffer);
+    }
+
+    /**
+     * Asynchronously calculate the {@link CRC32}-Checksum of a file,
+     * using a shared pool of a bounded number of daemon threads.
+     * @return the future checksum, cancelling it stops reading the file
+     * @see #crc32Async(Path, ExecutorService)
+     */
+    public static CompletableFuture<String> crc32Async(Path file) {
+        return crc32Async(file, null);
+    }
+
+    /**
+     * Asynchronously calculate the {@link CRC32}-Checksum of a file. The file is read using an
+     * {@link AsynchronousFileChannel}, the calling thread is not blocked.
+     * On most platforms (e.g. Linux and macOS) the reads are blocking calls on the executor's threads, so every file
+     * being read occupies one executor thread while waiting for I/O: use a bounded executor.
+     * @param file the file
+     * @param executor the executor running the I/O completion handlers (and the checksum calculation),
+     *                 {@code null} for the shared, bounded default pool.
+     * @return the future checksum, cancelling it stops reading the file
+     */
+    public static CompletableFuture<String> crc32Async(Path file, ExecutorService executor) {
+        return crc32ValueAsync(file, executor).thenApply(ChecksumUtils::toHex);
+    }
+
+    /**
+     * Asynchronously calculate the {@link CRC32}-Checksum of a file as numeric value.
+     * @see #crc32Async(Path, ExecutorService)
+     */
+    public static CompletableFuture<Long> crc32ValueAsync(Path file, ExecutorService executor) {
+        final Checksum checksum = new CRC32();
+        return AsyncFileReader.read(file, executor, checksum::update, checksum::getValue);
+    }
+
+    public static String crc32c(String input) {
+        return toHex(crc32cValue(input));
+    }
+
+    public static String crc32c(byte[] bytes) {
+        return toHex(crc32cValue(bytes));
+    }
+
+    public static String crc32c(File file) throws IOException {
+        return crc32c(file.toPath());
+    }
+
+    public static String crc32c(Path file) throws IOException {
+        return toHex(crc32cValue(file));
+    }
+
+    /**
+     * Calculate {@link CRC32C}-Checksum of an {@link InputStream}. The input stream will be consumed.
+     * @param inputStream the InputStream to build the checksum on. The stream will be consumed,
+     *                    but <strong>not</strong> closed.
+     */
+    public static String crc32c(InputStream inputStream) throws IOException {
+        return toHex(crc32cValue(inputStream));
+    }
+
+    /**
+     * Calculate {@link CRC32C}-Checksum of the remaining content of a {@link ByteBuffer}.
+     * @param buffer the buffer to build the checksum on. The position of the buffer is <strong>not</strong> modified.
+     */
+    public static String crc32c(ByteBuffer buffer) {
+        return toHex(crc32cValue(buffer));
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of a String (UTF-8) as numeric value.
+     * @see #crc32c(String)
+     */
+    public static long crc32cValue(String input) {
+        return checksum(new CRC32C(), input);
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of a byte-array as numeric value.
+     * @see #crc32c(byte[])
+     */
+    public static long crc32cValue(byte[] bytes) {
+        return checksum(new CRC32C(), bytes);
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of a File as numeric value.
+     * @see #crc32c(File)
+     */
+    public static long crc32cValue(File file) throws IOException {
+        return crc32cValue(file.toPath());
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of a file as numeric value.
+     * @see #crc32c(Path)
+     */
+    public static long crc32cValue(Path file) throws IOException {
+        return checksum(new CRC32C(), file);
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of an {@link InputStream} as numeric value.
+     * @param inputStream the InputStream to build the checksum on. The stream will be consumed,
+     *                    but <strong>not</strong> closed.
+     * @see #crc32c(InputStream)
+     */
+    public static long crc32cValue(InputStream inputStream) throws IOException {
+        return checksum(new CRC32C(), inputStream);
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of the remaining content of a {@link ByteBuffer} as numeric value.
+     * @param buffer the buffer to build the checksum on. The position of the buffer is <strong>not</strong> modified.
+     * @see #crc32c(ByteBuffer)
+     */
+    public static long crc32cValue(ByteBuffer buffer) {
+        return checksum(new CRC32C(), buffer);
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of a file, processing segments of the file in parallel.
+     * The result is identical to {@link #crc32(Path)}.
+     * @param file the file to build the checksum on
+     * @param pool the pool used to process the segments
+     * @see #crc32Combine(long, long, long)
+     */
+    public static String crc32(Path file, ForkJoinPool pool) throws IOException {
+        return toHex(crc32Value(file, pool));
+    }
+
+    /**
+     * Calculate the {@link CRC32}-Checksum of a file as numeric value, processing segments of the file in parallel.
+     * @see #crc32(Path, ForkJoinPool)
+     */
+    public static long crc32Value(Path file, ForkJoinPool pool) throws IOException {
+        return parallelChecksum(ChecksumAlg.CRC32, file, pool);
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of a file, processing segments of the file in parallel.
+     * The result is identical to {@link #crc32c(Path)}.
+     * @param file the file to build the checksum on
+     * @param pool the pool used to process the segments
+     * @see #crc32cCombine(long, long, long)
+     */
+    public static String crc32c(Path file, ForkJoinPool pool) throws IOException {
+        return toHex(crc32cValue(file, pool));
+    }
+
+    /**
+     * Calculate the {@link CRC32C}-Checksum of a file as numeric value, processing segments of the file in parallel.
+     * @see #crc32c(Path, ForkJoinPool)
+     */
+    public static long crc32cValue(Path file, ForkJoinPool pool) throws IOException {
+        return parallelChecksum(ChecksumAlg.CRC32C, file, pool);
+    }
+
+    /**
+     * Combine the {@link CRC32}-Checksums of two consecutive blocks of data, without access to the data.
+     * @param crc1 the checksum of the first block
+     * @param crc2 the checksum of the second block
+     * @param len2 the length (in bytes) of the second block
+     * @return the checksum of the concatenation of both blocks
+     */
+    public static long crc32Combine(long crc1, long crc2, long len2) {
+        return CrcCombine.combine(CrcCombine.CRC32_POLYNOMIAL, crc1, crc2, len2);
+    }
+
+    /**
+     * Combine the {@link CRC32C}-Checksums of two consecutive blocks of data, without access to the data.
+     * @param crc1 the checksum of the first block
+     * @param crc2 the checksum of the second block
+     * @param len2 the length (in bytes) of the second block
+     * @return the checksum of the concatenation of both blocks
+     */
+    public static long crc32cCombine(long crc1, long crc2, long len2) {
+        return CrcCombine.combine(CrcCombine.CRC32C_POLYNOMIAL, crc1, crc2, len2);
+    }
+
     public static String adler32(String input) {
-        return adler32(input.getBytes(StandardCharsets.UTF_8));
+        return toHex(adler32Value(input));
     }
 
     public static String adler32(byte[] bytes) {
-        return checksum(new Adler32(), bytes);
+        return toHex(adler32Value(bytes));
     }
 
     public  static String adler32(File file) throws IOException {
@@ -76,9 +355,7 @@ public final class ChecksumUtils {
     }
 
     public static String adler32(Path file) throws IOException {
-        try (InputStream is = Files.newInputStream(file, StandardOpenOption.READ)) {
-            return adler32(is);
-        }
+        return toHex(adler32Value(file));
     }
 
     /**
@@ -87,21 +364,258 @@ public final class ChecksumUtils {
      *                    but <strong>not</strong> closed.
      */
     public static String adler32(InputStream inputStream) throws IOException {
+        return toHex(adler32Value(inputStream));
+    }
+
+    /**
+     * Calculate {@link Adler32}-Checksum of the remaining content of a {@link ByteBuffer}.
+     * @param buffer the buffer to build the checksum on. The position of the buffer is <strong>not</strong> modified.
+     */
+    public static String adler32(ByteBuffer buffer) {
+        return toHex(adler32Value(buffer));
+    }
+
+    /**
+     * Calculate the {@link Adler32}-Checksum of a String (UTF-8) as numeric value.
+     * @see #adler32(String)
+     */
+    public static long adler32Value(String input) {
+        return checksum(new Adler32(), input);
+    }
+
+    /**
+     * Calculate the {@link Adler32}-Checksum of a byte-array as numeric value.
+     * @see #adler32(byte[])
+     */
+    public static long adler32Value(byte[] bytes) {
+        return checksum(new Adler32(), bytes);
+    }
+
+    /**
+     * Calculate the {@link Adler32}-Checksum of a File as numeric value.
+     * @see #adler32(File)
+     */
+    public static long adler32Value(File file) throws IOException {
+        return adler32Value(file.toPath());
+    }
+
+    /**
+     * Calculate the {@link Adler32}-Checksum of a file as numeric value.
+     * @see #adler32(Path)
+     */
+    public static long adler32Value(Path file) throws IOException {
+        return checksum(new Adler32(), file);
+    }
+
+    /**
+     * Calculate the {@link Adler32}-Checksum of an {@link InputStream} as numeric value.
+     * @param inputStream the InputStream to build the checksum on. The stream will be consumed,
+     *                    but <strong>not</strong> closed.
+     * @see #adler32(InputStream)
+     */
+    public static long adler32Value(InputStream inputStream) throws IOException {
         return checksum(new Adler32(), inputStream);
     }
 
-    private static String checksum(Checksum checksum, InputStream inputStream) throws IOException {
+    /**
+     * Calculate the {@link Adler32}-Checksum of the remaining content of a {@link ByteBuffer} as numeric value.
+     * @see #adler32(ByteBuffer)
+     */
+    public static long adler32Value(ByteBuffer buffer) {
+        return checksum(new Adler32(), buffer);
+    }
+
+    /**
+     * Calculate the checksum of a {@link CharSequence} (UTF-8). Long inputs are encoded in chunks,
+     * without allocating the complete encoded representation.
+     * @param alg the checksum algorithm
+     * @param chars the characters
+     */
+    public static String checksum(ChecksumAlg alg, CharSequence chars) {
+        return toHex(checksumValue(alg, chars));
+    }
+
+    /**
+     * Calculate the checksum of a {@link CharSequence} (UTF-8) as numeric value.
+     * @see #checksum(ChecksumAlg, CharSequence)
+     */
+    public static long checksumValue(ChecksumAlg alg, CharSequence chars) {
+        return checksum(alg.createChecksum(), chars);
+    }
+
+    /**
+     * Calculate the checksum of the remaining content of a {@link ByteBuffer}.
+     * @param alg the checksum algorithm
+     * @param buffer the buffer, its position is <strong>not</strong> modified.
+     */
+    public static String checksum(ChecksumAlg alg, ByteBuffer buffer) {
+        return toHex(checksumValue(alg, buffer));
+    }
+
+    /**
+     * Calculate the checksum of the remaining content of a {@link ByteBuffer} as numeric value.
+     * @see #checksum(ChecksumAlg, ByteBuffer)
+     */
+    public static long checksumValue(ChecksumAlg alg, ByteBuffer buffer) {
+        return checksum(alg.createChecksum(), buffer);
+    }
+
+    /**
+     * Calculate the checksum of the remaining content of several {@link ByteBuffer}s, as if they were concatenated.
+     * @param alg the checksum algorithm
+     * @param buffers the buffers, their positions are <strong>not</strong> modified.
+     */
+    public static String checksum(ChecksumAlg alg, ByteBuffer[] buffers) {
+        return toHex(checksumValue(alg, buffers));
+    }
+
+    /**
+     * Calculate the checksum of the remaining content of several {@link ByteBuffer}s as numeric value.
+     * @see #checksum(ChecksumAlg, ByteBuffer[])
+     */
+    public static long checksumValue(ChecksumAlg alg, ByteBuffer[] buffers) {
+        final Checksum checksum = alg.createChecksum();
+        for (ByteBuffer buffer : buffers) {
+            checksum.update(buffer.duplicate());
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Calculate the checksum of the content of a {@link ReadableByteChannel}.
+     * A {@link FileChannel} is read from its current position through a direct buffer; large files are only
+     * memory-mapped if the system property {@code io.redlink.utils.mmap} is {@code true}.
+     * @param alg the checksum algorithm
+     * @param channel the channel, will be consumed but <strong>not</strong> closed.
+     */
+    public static String checksum(ChecksumAlg alg, ReadableByteChannel channel) throws IOException {
+        return toHex(checksumValue(alg, channel));
+    }
+
+    /**
+     * Calculate the checksum of the content of a {@link ReadableByteChannel} as numeric value.
+     * @see #checksum(ChecksumAlg, ReadableByteChannel)
+     */
+    public static long checksumValue(ChecksumAlg alg, ReadableByteChannel channel) throws IOException {
+        final Checksum checksum = alg.createChecksum();
+        FileChannels.read(channel, checksum::update);
+        return checksum.getValue();
+    }
+
+    /**
+     * Calculate the checksum of a file, using a {@link DigestCache} to skip unchanged files.
+     * @param alg the checksum algorithm
+     * @param file the file
+     * @param cache the cache to lookup and store the checksum
+     * @see #checksumValue(ChecksumAlg, Path, DigestCache)
+     */
+    public static String checksum(ChecksumAlg alg, Path file, DigestCache cache) throws IOException {
+        return toHex(checksumValue(alg, file, cache));
+    }
+
+    /**
+     * Calculate the checksum of a file as numeric value, using a {@link DigestCache} to skip unchanged files.
+     * If the cache contains a checksum for the file in its current state (size, last-modified), the file is not read.
+     * @param alg the checksum algorithm
+     * @param file the file
+     * @param cache the cache to lookup and store the checksum
+     */
+    public static long checksumValue(ChecksumAlg alg, Path file, DigestCache cache) throws IOException {
+        return CachedDigests.toChecksum(CachedDigests.digest(cache, file, alg.name(),
+                f -> CachedDigests.toBytes(checksum(alg.createChecksum(), f))));
+    }
+
+    /**
+     * The hex-representation of a 32-bit checksum value, as returned by the String-methods.
+     * @param checksum the checksum value
+     * @return the checksum as 8 hex-characters
+     */
+    public static String toHex(long checksum) {
+        return HexUtils.encode((int) checksum);
+    }
+
+    private static long parallelChecksum(ChecksumAlg alg, Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return pool.invoke(new SegmentChecksum(channel, alg, 0, channel.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long checksum(Checksum checksum, InputStream inputStream) throws IOException {
         byte[] buffer = new byte[4096];
         int bytesRead;
         while ((bytesRead = inputStream.read(buffer)) >= 0) {
             checksum.update(buffer, 0, bytesRead);
         }
-        return String.format("%08x", checksum.getValue());
+        return checksum.getValue();
+    }
+
+    private static long checksum(Checksum checksum, Path file) throws IOException {
+        FileChannels.read(file, checksum::update);
+        return checksum.getValue();
     }
 
-    private static String checksum(Checksum checksum, byte[] bytes) {
+    private static long checksum(Checksum checksum, ByteBuffer buffer) {
+        checksum.update(buffer.duplicate());
+        return checksum.getValue();
+    }
+
+    private static long checksum(Checksum checksum, CharSequence chars) {
+        if (chars instanceof String && chars.length() <= Utf8Encoder.STREAMING_THRESHOLD) {
+            return checksum(checksum, ((String) chars).getBytes(StandardCharsets.UTF_8));
+        }
+        Utf8Encoder.encode(chars, checksum::update);
+        return checksum.getValue();
+    }
+
+    private static long checksum(Checksum checksum, byte[] bytes) {
         checksum.update(bytes, 0, bytes.length);
-        return String.format("%08x", checksum.getValue());
+        return checksum.getValue();
+    }
+
+    /**
+     * Checksum of a segment of a file: large segments are split, the partial checksums are combined.
+     */
+    private static class SegmentChecksum extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final ChecksumAlg alg;
+        private final long position;
+        private final long length;
+
+        SegmentChecksum(FileChannel channel, ChecksumAlg alg, long position, long length) {
+            this.channel = channel;
+            this.alg = alg;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        protected Long compute() {
+            if (length > PARALLEL_SEGMENT_SIZE) {
+                final long segments = (length + PARALLEL_SEGMENT_SIZE - 1) / PARALLEL_SEGMENT_SIZE;
+                final long leftLength = (segments / 2) * PARALLEL_SEGMENT_SIZE;
+                final SegmentChecksum left = new SegmentChecksum(channel, alg, position, leftLength);
+                final SegmentChecksum right = new SegmentChecksum(channel, alg, position + leftLength, length - leftLength);
+                right.fork();
+                final long leftCrc = left.compute();
+                final long rightCrc = right.join();
+                return alg == ChecksumAlg.CRC32C
+                        ? crc32cCombine(leftCrc, rightCrc, length - leftLength)
+                        : crc32Combine(leftCrc, rightCrc, length - leftLength);
+            }
+
+            final Checksum checksum = alg.createChecksum();
+            try {
+                FileChannels.read(channel, position, length, checksum::update);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return checksum.getValue();
+        }
     }
 
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Checksum;
+
+/**
+ * A {@link WritableByteChannel} that calculates a checksum of the data written through it.
+ *
+ * <p>Only the bytes actually accepted by the underlying channel are included in the checksum.</p>
+ *
+ * @see ChecksumUtils
+ */
+public class ChecksumWritableByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private final Checksum checksum;
+    private long count = 0;
+
+    /**
+     * Create a ChecksumWritableByteChannel.
+     * @param channel the underlying channel
+     * @param alg the checksum algorithm
+     */
+    public ChecksumWritableByteChannel(WritableByteChannel channel, ChecksumUtils.ChecksumAlg alg) {
+        this.channel = channel;
+        this.checksum = alg.createChecksum();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        final ByteBuffer written = src.duplicate();
+        final int bytesWritten = channel.write(src);
+        if (bytesWritten > 0) {
+            written.limit(written.position() + bytesWritten);
+            checksum.update(written);
+            count += bytesWritten;
+        }
+        return bytesWritten;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The number of bytes written.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The checksum of the data written so far, hex-encoded as in {@link ChecksumUtils#crc32(byte[])}.
+     */
+    public String getChecksum() {
+        return ChecksumUtils.toHex(checksum.getValue());
+    }
+
+    /**
+     * The checksum of the data written so far, as in {@link ChecksumUtils#crc32Value(byte[])}.
+     */
+    public long getValue() {
+        return checksum.getValue();
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits data into content-defined chunks using
+ * <a href="https://www.usenix.org/conference/atc16/technical-sessions/presentation/xia">FastCDC</a>,
+ * and hashes every chunk.
+ *
+ * <p>Chunk boundaries depend only on the (preceding) content, so inserting or removing data only affects the chunks
+ * around the modification - all other chunks (and their digests) remain unchanged. This makes the chunks
+ * suitable for de-duplication.</p>
+ * <p>Boundaries are detected with a Gear rolling hash and normalized chunking (NC2): chunks are at least
+ * {@link #getMinSize() minSize} and at most {@link #getMaxSize() maxSize} bytes, their sizes concentrate around
+ * {@link #getAvgSize() avgSize}. The Gear table is derived from a fixed seed, so boundaries are stable.</p>
+ * <p>Instances are immutable and thread-safe.</p>
+ */
+public final class ContentDefinedChunker {
+
+    public static final int DEFAULT_MIN_SIZE = 2 * 1024;
+    public static final int DEFAULT_AVG_SIZE = 8 * 1024;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+
+    private static final int NORMALIZATION_LEVEL = 2;
+    private static final int MIN_BUFFER_SIZE = 256 * 1024;
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // SplitMix64, fixed seed
+        long seed = 0x5eed_c0de_cdc0_0001L;
+        for (int i = 0; i < GEAR.length; i++) {
+            seed += 0x9e3779b97f4a7c15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final HashUtils.HashAlg algorithm;
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskSmall;
+    private final long maskLarge;
+
+    /**
+     * Create a chunker using the default sizes (2 KiB / 8 KiB / 64 KiB).
+     * @param algorithm the algorithm used to hash the chunks
+     */
+    public ContentDefinedChunker(HashUtils.HashAlg algorithm) {
+        this(algorithm, DEFAULT_MIN_SIZE, DEFAULT_AVG_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a chunker.
+     * @param algorithm the algorithm used to hash the chunks
+     * @param minSize the minimum chunk size
+     * @param avgSize the targeted average chunk size, must be a power of 2
+     * @param maxSize the maximum chunk size
+     */
+    public ContentDefinedChunker(HashUtils.HashAlg algorithm, int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize > avgSize || avgSize > maxSize) {
+            throw new IllegalArgumentException("Invalid chunk sizes: require 0 < minSize <= avgSize <= maxSize, got "
+                    + minSize + "/" + avgSize + "/" + maxSize);
+        }
+        if (Integer.bitCount(avgSize) != 1 || avgSize < 64) {
+            throw new IllegalArgumentException("avgSize must be a power of 2 (>= 64): " + avgSize);
+        }
+        this.algorithm = algorithm;
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        final int bits = Integer.numberOfTrailingZeros(avgSize);
+        // use the high bits of the fingerprint, they depend on the last 64 bytes
+        this.maskSmall = -1L << (64 - (bits + NORMALIZATION_LEVEL));
+        this.maskLarge = -1L << (64 - (bits - NORMALIZATION_LEVEL));
+    }
+
+    public HashUtils.HashAlg getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getAvgSize() {
+        return avgSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Chunk a file.
+     * @param file the file to chunk
+     * @return the chunks, in file-order
+     */
+    public List<Chunk> chunk(Path file) throws IOException {
+        final List<Chunk> chunks = new ArrayList<>();
+        chunk(file, chunks::add);
+        return chunks;
+    }
+
+    /**
+     * Chunk a file.
+     * @param file the file to chunk
+     * @param consumer receives the chunks, in file-order
+     */
+    public void chunk(Path file, Consumer<Chunk> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            chunk(channel, consumer);
+        }
+    }
+
+    /**
+     * Chunk the content of a {@link FileChannel}, starting at its current position.
+     * @param channel the channel to read, will <strong>not</strong> be closed.
+     * @param consumer receives the chunks, in order. Offsets are relative to the initial position.
+     */
+    public void chunk(FileChannel channel, Consumer<Chunk> consumer) throws IOException {
+        final byte[] buffer = new byte[bufferSize()];
+        final ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+        process(buffer, (bytes, off, len) -> {
+            wrapper.limit(off + len).position(off);
+            return channel.read(wrapper);
+        }, consumer);
+    }
+
+    /**
+     * Chunk the content of an {@link InputStream}.
+     * @param is the data, the stream will be consumed, but <strong>not</strong> closed.
+     * @param consumer receives the chunks, in order
+     */
+    public void chunk(InputStream is, Consumer<Chunk> consumer) throws IOException {
+        process(new byte[bufferSize()], is::read, consumer);
+    }
+
+    private int bufferSize() {
+        return Math.max(MIN_BUFFER_SIZE, 2 * maxSize);
+    }
+
+    private void process(byte[] buffer, Source source, Consumer<Chunk> consumer) throws IOException {
+        final MessageDigest digest = algorithm.createDigest();
+        long offset = 0;
+        int pos = 0;
+        int end = 0;
+        boolean eof = false;
+        while (true) {
+            if (!eof && end - pos < maxSize) {
+                // compact and refill
+                if (pos > 0) {
+                    System.arraycopy(buffer, pos, buffer, 0, end - pos);
+                    end -= pos;
+                    pos = 0;
+                }
+                while (end < buffer.length) {
+                    final int read = source.read(buffer, end, buffer.length - end);
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    end += read;
+                }
+            }
+            if (pos >= end) {
+                return;
+            }
+            final int length = cutPoint(buffer, pos, end - pos);
+            digest.update(buffer, pos, length);
+            consumer.accept(new Chunk(offset, length, digest.digest()));
+            offset += length;
+            pos += length;
+        }
+    }
+
+    /**
+     * Find the next chunk boundary.
+     * @param bytes the data
+     * @param offset the start of the chunk
+     * @param available the available bytes, at least {@link #maxSize} unless at the end of the data
+     * @return the length of the chunk
+     */
+    int cutPoint(byte[] bytes, int offset, int available) {
+        if (available <= minSize) {
+            return available;
+        }
+        final int normal = offset + Math.min(avgSize, available);
+        final int end = offset + Math.min(maxSize, available);
+        long fingerprint = 0;
+        int i = offset + minSize;
+        for (; i < normal; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[bytes[i] & 0xff];
+            if ((fingerprint & maskSmall) == 0) {
+                return i - offset + 1;
+            }
+        }
+        for (; i < end; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[bytes[i] & 0xff];
+            if ((fingerprint & maskLarge) == 0) {
+                return i - offset + 1;
+            }
+        }
+        return end - offset;
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        int read(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    /**
+     * A single chunk.
+     */
+    public static final class Chunk {
+        private final long offset;
+        private final int length;
+        private final byte[] digest;
+
+        Chunk(long offset, int length, byte[] digest) {
+            this.offset = offset;
+            this.length = length;
+            this.digest = digest;
+        }
+
+        /**
+         * The position of the chunk in the data.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * The digest of the chunk, hex-encoded.
+         */
+        public String getHash() {
+            return HexUtils.encode(digest);
+        }
+
+        /**
+         * The digest of the chunk.
+         */
+        public byte[] getDigest() {
+            return digest.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "Chunk{offset=" + offset + ", length=" + length + ", hash=" + getHash() + '}';
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * Options for {@link PathUtils#copyRecursive(Path, Path, CopyOptions)}.
+ * By default attributes are not preserved, and files are copied sequentially with
+ * {@link PathUtils.CopyStrategy#DEFAULT} without reporting the progress.
+ */
+public final class CopyOptions {
+
+    private boolean preserve;
+    private PathUtils.CopyStrategy strategy = PathUtils.CopyStrategy.DEFAULT;
+    private int parallelism = 1;
+    private Executor executor;
+    private ProgressListener listener;
+
+    private CopyOptions() {}
+
+    /**
+     * Preserve attributes. When copying in parallel, the modification time of a directory is set after all
+     * its children are copied.
+     */
+    public CopyOptions withPreserve(boolean preserve) {
+        this.preserve = preserve;
+        return this;
+    }
+
+    /**
+     * The mechanism used to copy regular files.
+     */
+    public CopyOptions withStrategy(PathUtils.CopyStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must not be null");
+        }
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * The max. number of files copied in parallel. Directories are created in walk-order, before any of their
+     * content is copied. Ignored if an {@link #withExecutor(Executor) executor} is set.
+     */
+    public CopyOptions withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Copy the files on the provided executor, its size limits the number of files copied in parallel.
+     * @param executor the executor, {@code null} to use a pool of {@link #withParallelism(int) parallelism} threads
+     */
+    public CopyOptions withExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Report the progress of the copy.
+     * @param listener the listener, {@code null} for none
+     */
+    public CopyOptions withListener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public boolean isPreserve() {
+        return preserve;
+    }
+
+    public PathUtils.CopyStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public ProgressListener getListener() {
+        return listener;
+    }
+
+    public static CopyOptions create() {
+        return new CopyOptions();
+    }
+}
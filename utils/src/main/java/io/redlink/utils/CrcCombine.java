@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+/**
+ * Combine two CRCs (of consecutive data) into the CRC of the concatenated data, without access to the data itself.
+ *
+ * <p>Port of {@code crc32_combine} from <a href="https://zlib.net">zlib</a>, which applies the "append {@code len2}
+ * zero-bytes" operator as a matrix over GF(2).</p>
+ */
+final class CrcCombine {
+
+    /**
+     * Reflected polynomial of {@link java.util.zip.CRC32}.
+     */
+    static final int CRC32_POLYNOMIAL = 0xedb88320;
+    /**
+     * Reflected polynomial of {@link java.util.zip.CRC32C} (Castagnoli).
+     */
+    static final int CRC32C_POLYNOMIAL = 0x82f63b78;
+
+    private CrcCombine() {}
+
+    /**
+     * Combine two CRCs.
+     * @param polynomial the reflected polynomial of the CRC
+     * @param crc1 the CRC of the first block
+     * @param crc2 the CRC of the second block
+     * @param len2 the length of the second block
+     * @return the CRC of the concatenation of both blocks
+     */
+    static long combine(int polynomial, long crc1, long crc2, long len2) {
+        if (len2 < 0) {
+            throw new IllegalArgumentException("len2 must not be negative: " + len2);
+        }
+        if (len2 == 0) {
+            return crc1;
+        }
+
+        final int[] even = new int[32];
+        final int[] odd = new int[32];
+
+        // operator for one zero bit
+        odd[0] = polynomial;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operator for two zero bits
+        square(even, odd);
+        // operator for four zero bits
+        square(odd, even);
+
+        // apply len2 zero bytes to crc1 (the first square puts the operator for one zero byte in even)
+        int crc = (int) crc1;
+        long len = len2;
+        do {
+            square(even, odd);
+            if ((len & 1) != 0) {
+                crc = times(even, crc);
+            }
+            len >>>= 1;
+            if (len == 0) {
+                break;
+            }
+
+            square(odd, even);
+            if ((len & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            len >>>= 1;
+        } while (len != 0);
+
+        return (crc ^ (int) crc2) & 0xffffffffL;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        int vec = vector;
+        int i = 0;
+        while (vec != 0) {
+            if ((vec & 1) != 0) {
+                sum ^= matrix[i];
+            }
+            vec >>>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.SortedMap;
+
+/**
+ * The outcome of a parallel recursive delete: what was removed, and what could not be removed.
+ * Directories containing an entry that could not be deleted are kept, but not reported as failures themselves.
+ *
+ * @see PathUtils#deleteRecursive(Path, boolean, int)
+ */
+public final class DeleteReport {
+
+    private final long deletedFiles;
+    private final long deletedDirectories;
+    private final long freedBytes;
+    private final SortedMap<Path, IOException> failures;
+
+    DeleteReport(long deletedFiles, long deletedDirectories, long freedBytes, SortedMap<Path, IOException> failures) {
+        this.deletedFiles = deletedFiles;
+        this.deletedDirectories = deletedDirectories;
+        this.freedBytes = freedBytes;
+        this.failures = Collections.unmodifiableSortedMap(failures);
+    }
+
+    /**
+     * The number of deleted files (including symbolic links).
+     */
+    public long getDeletedFiles() {
+        return deletedFiles;
+    }
+
+    /**
+     * The number of deleted directories.
+     */
+    public long getDeletedDirectories() {
+        return deletedDirectories;
+    }
+
+    /**
+     * The sum of the sizes of all deleted files.
+     */
+    public long getFreedBytes() {
+        return freedBytes;
+    }
+
+    /**
+     * The entries that could not be deleted (or visited), with the cause.
+     */
+    public SortedMap<Path, IOException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Whether the complete tree was deleted.
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "DeleteReport{" +
+                "deletedFiles=" + deletedFiles +
+                ", deletedDirectories=" + deletedDirectories +
+                ", freedBytes=" + freedBytes +
+                ", failures=" + failures.size() +
+                '}';
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The difference between a base version and a new version of some data, as calculated by
+ * {@link BlockSignature#delta(java.io.InputStream)}.
+ *
+ * <p>A Delta is a sequence of {@link Instruction}s: {@link Copy} a range from the base version, or
+ * insert {@link Literal} data. {@link #apply(SeekableByteChannel, OutputStream) Applying} all instructions
+ * in order to the base version re-creates the new version.</p>
+ */
+public final class Delta {
+
+    private final List<Instruction> instructions;
+
+    Delta(List<Instruction> instructions) {
+        this.instructions = Collections.unmodifiableList(instructions);
+    }
+
+    /**
+     * The instructions, in order.
+     */
+    public List<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * The number of bytes that have to be transferred as literal.
+     */
+    public long getLiteralLength() {
+        long length = 0;
+        for (Instruction instruction : instructions) {
+            if (instruction instanceof Literal) {
+                length += instruction.getLength();
+            }
+        }
+        return length;
+    }
+
+    /**
+     * The number of bytes re-used from the base version.
+     */
+    public long getCopyLength() {
+        long length = 0;
+        for (Instruction instruction : instructions) {
+            if (instruction instanceof Copy) {
+                length += instruction.getLength();
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Re-create the new version.
+     * @param base the base version
+     * @param out the target for the new version, will <strong>not</strong> be closed.
+     */
+    public void apply(SeekableByteChannel base, OutputStream out) throws IOException {
+        final byte[] buffer = new byte[8192];
+        for (Instruction instruction : instructions) {
+            if (instruction instanceof Literal) {
+                out.write(((Literal) instruction).data);
+            } else {
+                final Copy copy = (Copy) instruction;
+                base.position(copy.getOffset());
+                long remaining = copy.getLength();
+                while (remaining > 0) {
+                    final int read = base.read(ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, remaining)));
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of base data at " + (copy.getOffset() + copy.getLength() - remaining));
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+    }
+
+    /**
+     * A single step to re-create the new version.
+     */
+    public interface Instruction {
+        /**
+         * The number of bytes produced by this instruction.
+         */
+        long getLength();
+    }
+
+    /**
+     * Copy a range from the base version.
+     */
+    public static final class Copy implements Instruction {
+        private final long offset;
+        private final long length;
+
+        Copy(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * The offset in the base version.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return "Copy{offset=" + offset + ", length=" + length + '}';
+        }
+    }
+
+    /**
+     * Literal data, not available in the base version.
+     */
+    public static final class Literal implements Instruction {
+        private final byte[] data;
+
+        Literal(byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * The literal data.
+         */
+        public byte[] getData() {
+            return data.clone();
+        }
+
+        @Override
+        public long getLength() {
+            return data.length;
+        }
+
+        @Override
+        public String toString() {
+            return "Literal{length=" + data.length + '}';
+        }
+    }
+}
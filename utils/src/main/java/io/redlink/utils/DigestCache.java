@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A cache for digests (and checksums) of files, used to skip re-reading unchanged files.
+ *
+ * <p>Implementations must only return a digest if it was stored for the same file <em>and</em> the same state
+ * of the file, i.e. the provided {@link BasicFileAttributes} ({@link BasicFileAttributes#size() size},
+ * {@link BasicFileAttributes#lastModifiedTime() lastModifiedTime}) match the ones at the time it was stored.</p>
+ *
+ * @see LruDigestCache
+ * @see XattrDigestCache
+ * @see HashUtils#digest(HashUtils.HashAlg, Path, DigestCache)
+ * @see ChecksumUtils#checksumValue(ChecksumUtils.ChecksumAlg, Path, DigestCache)
+ */
+public interface DigestCache {
+
+    /**
+     * Lookup a digest.
+     * @param file the file
+     * @param attributes the current attributes of the file
+     * @param algorithm the name of the algorithm
+     * @return the cached digest, or {@code null} if there is no digest for the file in its current state.
+     */
+    byte[] get(Path file, BasicFileAttributes attributes, String algorithm) throws IOException;
+
+    /**
+     * Store a digest.
+     * @param file the file
+     * @param attributes the attributes of the file when the digest was calculated
+     * @param algorithm the name of the algorithm
+     * @param digest the digest
+     */
+    void put(Path file, BasicFileAttributes attributes, String algorithm, byte[] digest) throws IOException;
+
+}
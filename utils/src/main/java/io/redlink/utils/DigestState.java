@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One or more {@link MessageDigest}s that are updated together and completed once.
+ */
+final class DigestState {
+
+    private final Map<HashUtils.HashAlg, MessageDigest> digests;
+    private Map<HashUtils.HashAlg, byte[]> result;
+
+    DigestState(Set<HashUtils.HashAlg> algs) {
+        if (algs.isEmpty()) {
+            throw new IllegalArgumentException("At least one HashAlg is required");
+        }
+        digests = new EnumMap<>(HashUtils.HashAlg.class);
+        for (HashUtils.HashAlg alg : algs) {
+            digests.put(alg, alg.createDigest());
+        }
+    }
+
+    void update(byte b) {
+        checkOpen();
+        for (MessageDigest digest : digests.values()) {
+            digest.update(b);
+        }
+    }
+
+    void update(byte[] bytes, int offset, int length) {
+        checkOpen();
+        for (MessageDigest digest : digests.values()) {
+            digest.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Update the digests with the remaining content of the buffer, without changing the buffer's position.
+     */
+    void update(ByteBuffer buffer) {
+        checkOpen();
+        for (MessageDigest digest : digests.values()) {
+            digest.update(buffer.duplicate());
+        }
+    }
+
+    Map<HashUtils.HashAlg, byte[]> complete() {
+        if (result == null) {
+            final Map<HashUtils.HashAlg, byte[]> digested = new EnumMap<>(HashUtils.HashAlg.class);
+            digests.forEach((alg, digest) -> digested.put(alg, digest.digest()));
+            result = Collections.unmodifiableMap(digested);
+        }
+        return result;
+    }
+
+    byte[] complete(HashUtils.HashAlg alg) {
+        final byte[] digest = complete().get(alg);
+        if (digest == null) {
+            throw new IllegalArgumentException(alg + " has not been calculated, only " + digests.keySet());
+        }
+        return digest.clone();
+    }
+
+    Map<HashUtils.HashAlg, String> completeHex() {
+        final Map<HashUtils.HashAlg, String> hashes = new EnumMap<>(HashUtils.HashAlg.class);
+        complete().forEach((alg, digest) -> hashes.put(alg, HexUtils.encode(digest)));
+        return Collections.unmodifiableMap(hashes);
+    }
+
+    void checkOpen() {
+        if (result != null) {
+            throw new IllegalStateException("Digest already completed");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * The hashes of all files in a directory tree, plus a root hash over the complete tree.
+ *
+ * <p>The {@link #getRoot() root} is the hash of the {@link #getManifest() manifest}: one line
+ * {@code <hash><space><space><relative path>\n} per file, sorted by relative path (using {@code /} as separator).
+ * This is the format of {@code sha256sum} and friends, so the manifest can be verified with the usual tools:
+ * as there, if a path contains a backslash, a newline or a carriage return, the line starts with a {@code \} and
+ * these characters are escaped as {@code \\}, {@code \n} and {@code \r}.
+ * Directories (and empty directories) do not contribute to the root hash, symbolic links are followed.</p>
+ *
+ * @see HashUtils#hashTree(HashUtils.HashAlg, Path)
+ */
+public final class DirectoryHash {
+
+    private final HashUtils.HashAlg algorithm;
+    private final SortedMap<String, String> files;
+    private final byte[] root;
+
+    private DirectoryHash(HashUtils.HashAlg algorithm, SortedMap<String, String> files) {
+        this.algorithm = algorithm;
+        this.files = Collections.unmodifiableSortedMap(files);
+        final MessageDigest digest = algorithm.createDigest();
+        final StringBuilder line = new StringBuilder();
+        files.forEach((path, hash) -> {
+            line.setLength(0);
+            digest.update(appendLine(line, path, hash).toString().getBytes(StandardCharsets.UTF_8));
+        });
+        this.root = digest.digest();
+    }
+
+    /**
+     * The algorithm used to hash the files and the manifest.
+     */
+    public HashUtils.HashAlg getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The root hash of the tree, i.e. the hash of the {@link #getManifest() manifest}.
+     */
+    public String getRoot() {
+        return HexUtils.encode(root);
+    }
+
+    /**
+     * The hashes of all files, keyed (and sorted) by their path relative to the root directory.
+     */
+    public SortedMap<String, String> getFiles() {
+        return files;
+    }
+
+    /**
+     * The hash of a single file.
+     * @param relativePath the path relative to the root directory, using {@code /} as separator
+     * @return the hash, or {@code null} if the file is not part of the tree
+     */
+    public String getHash(String relativePath) {
+        return files.get(relativePath);
+    }
+
+    /**
+     * The manifest of the tree, one line {@code <hash><space><space><relative path>} per file.
+     * Special characters in the path are escaped like {@code sha256sum} does.
+     */
+    public String getManifest() {
+        final StringBuilder manifest = new StringBuilder(files.size() * (algorithm.getDigestLength() + 32));
+        files.forEach((path, hash) -> appendLine(manifest, path, hash));
+        return manifest.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final DirectoryHash that = (DirectoryHash) o;
+        return algorithm == that.algorithm
+                && MessageDigest.isEqual(root, that.root);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(algorithm, Arrays.hashCode(root));
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + "-dir(" + files.size() + "):" + getRoot();
+    }
+
+    /**
+     * Append a manifest line, escaping the path the way {@code sha256sum} does.
+     */
+    private static StringBuilder appendLine(StringBuilder manifest, String path, String hash) {
+        final boolean escape = path.indexOf('\\') >= 0 || path.indexOf('\n') >= 0 || path.indexOf('\r') >= 0;
+        if (escape) {
+            manifest.append('\\');
+        }
+        manifest.append(hash).append("  ");
+        if (escape) {
+            for (int i = 0; i < path.length(); i++) {
+                final char c = path.charAt(i);
+                switch (c) {
+                    case '\\':
+                        manifest.append("\\\\");
+                        break;
+                    case '\n':
+                        manifest.append("\\n");
+                        break;
+                    case '\r':
+                        manifest.append("\\r");
+                        break;
+                    default:
+                        manifest.append(c);
+                }
+            }
+        } else {
+            manifest.append(path);
+        }
+        return manifest.append('\n');
+    }
+
+    /**
+     * Calculate the {@link DirectoryHash} of a directory tree.
+     * @param algorithm the algorithm used to hash the files
+     * @param root the root directory
+     * @param executor the executor used to hash the files in parallel
+     */
+    static DirectoryHash calculate(HashUtils.HashAlg algorithm, Path root, Executor executor) throws IOException {
+        final List<String> paths = new ArrayList<>();
+        final List<CompletableFuture<String>> hashes = new ArrayList<>();
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    paths.add(relativize(root, file));
+                    hashes.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return HashUtils.hash(algorithm, file);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, executor));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        final SortedMap<String, String> files = new TreeMap<>();
+        try {
+            for (int i = 0; i < paths.size(); i++) {
+                files.put(paths.get(i), hashes.get(i).join());
+            }
+        } catch (CompletionException e) {
+            hashes.forEach(f -> f.cancel(false));
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+        return new DirectoryHash(algorithm, files);
+    }
+
+    private static String relativize(Path root, Path file) {
+        final Path relative = root.relativize(file);
+        final StringBuilder path = new StringBuilder();
+        for (Path element : relative) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(element);
+        }
+        return path.toString();
+    }
+}
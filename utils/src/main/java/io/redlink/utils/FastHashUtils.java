@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Utils for calculating fast, non-cryptographic hashes (xxHash64, MurmurHash3).
+ *
+ * <p>These hashes are well suited for deduplication, sharding or hash-tables, but must <strong>not</strong> be
+ * used where collisions could be crafted on purpose. Use {@link HashUtils} in that case.</p>
+ *
+ * <p>Strings ({@link CharSequence}s) are hashed on their UTF-16 code units (little-endian) without charset-encoding,
+ * i.e. {@code hash(alg, string)} equals {@code hash(alg, string.getBytes(UTF_16LE))}.</p>
+ *
+ * @see HashUtils
+ * @see ChecksumUtils
+ */
+public final class FastHashUtils {
+
+    /**
+     * Supported non-cryptographic hashing algorithms
+     */
+    public enum FastHashAlg {
+        /**
+         * <a href="https://github.com/Cyan4973/xxHash">xxHash64</a> (seed 0), creates 16 char digest.
+         * The digest is the canonical (big-endian) representation of the 64-bit hash.
+         */
+        XXHASH64,
+        /**
+         * <a href="https://github.com/aappleby/smhasher/wiki/MurmurHash3">MurmurHash3_x64_128</a> (seed 0),
+         * creates 32 char digest.
+         */
+        MURMUR3_128;
+
+        StripedHasher createHasher() {
+            switch (this) {
+                case XXHASH64:
+                    return new XxHash64(0);
+                case MURMUR3_128:
+                    return new Murmur3Hash128(0);
+                default:
+                    throw new IllegalStateException("Unknown FastHashAlg " + this);
+            }
+        }
+    }
+
+    private FastHashUtils() {}
+
+    public static String hash(FastHashAlg alg, byte[] bytes) {
+        return HexUtils.encode(digest(alg, bytes));
+    }
+
+    /**
+     * Hash the remaining content of a buffer. The position of the buffer is not modified.
+     */
+    public static String hash(FastHashAlg alg, ByteBuffer buffer) {
+        return HexUtils.encode(digest(alg, buffer));
+    }
+
+    public static String hash(FastHashAlg alg, CharSequence chars) {
+        return HexUtils.encode(digest(alg, chars));
+    }
+
+    public static String hash(FastHashAlg alg, Path file) throws IOException {
+        return HexUtils.encode(digest(alg, file));
+    }
+
+    public static byte[] digest(FastHashAlg alg, byte[] bytes) {
+        final StripedHasher hasher = alg.createHasher();
+        hasher.update(bytes, 0, bytes.length);
+        return hasher.digest();
+    }
+
+    /**
+     * Hash the remaining content of a buffer. The position of the buffer is not modified.
+     */
+    public static byte[] digest(FastHashAlg alg, ByteBuffer buffer) {
+        final StripedHasher hasher = alg.createHasher();
+        hasher.update(buffer.duplicate());
+        return hasher.digest();
+    }
+
+    public static byte[] digest(FastHashAlg alg, CharSequence chars) {
+        final StripedHasher hasher = alg.createHasher();
+        hasher.update(chars);
+        return hasher.digest();
+    }
+
+    public static byte[] digest(FastHashAlg alg, Path file) throws IOException {
+        final StripedHasher hasher = alg.createHasher();
+        FileChannels.read(file, hasher::update);
+        return hasher.digest();
+    }
+
+    public static long xxHash64(byte[] bytes) {
+        return xxHash64(bytes, 0L);
+    }
+
+    /**
+     * Calculate the xxHash64 of a byte-array with a custom seed.
+     * @param bytes the bytes to hash
+     * @param seed the seed
+     * @return the 64-bit hash
+     */
+    public static long xxHash64(byte[] bytes, long seed) {
+        final XxHash64 hasher = new XxHash64(seed);
+        hasher.update(bytes, 0, bytes.length);
+        return hasher.value();
+    }
+
+    /**
+     * Hash the remaining content of a buffer. The position of the buffer is not modified.
+     */
+    public static long xxHash64(ByteBuffer buffer) {
+        final XxHash64 hasher = new XxHash64(0L);
+        hasher.update(buffer.duplicate());
+        return hasher.value();
+    }
+
+    public static long xxHash64(CharSequence chars) {
+        final XxHash64 hasher = new XxHash64(0L);
+        hasher.update(chars);
+        return hasher.value();
+    }
+
+    public static long xxHash64(Path file) throws IOException {
+        final XxHash64 hasher = new XxHash64(0L);
+        FileChannels.read(file, hasher::update);
+        return hasher.value();
+    }
+
+    /**
+     * Calculate the MurmurHash3_x64_128 of a byte-array with a custom seed.
+     * @param bytes the bytes to hash
+     * @param seed the seed
+     * @return the 128-bit hash
+     */
+    public static byte[] murmur3(byte[] bytes, int seed) {
+        final Murmur3Hash128 hasher = new Murmur3Hash128(seed);
+        hasher.update(bytes, 0, bytes.length);
+        return hasher.digest();
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Feeds the content of a file (or channel) into a {@link ByteBuffer}-consumer, e.g.
+ * {@link java.security.MessageDigest#update(ByteBuffer)} or {@link java.util.zip.Checksum#update(ByteBuffer)}.
+ *
+ * <p>Content is read through a direct buffer, which saves the copy from a temporary native buffer for consumers
+ * that work on native memory (e.g. {@link java.util.zip.CRC32}). A {@link java.security.MessageDigest} still
+ * copies the content into a heap array internally.</p>
+ *
+ * <p>Memory-mapping of complete files (in windows of {@link #MMAP_WINDOW_SIZE} bytes) is opt-in, by setting
+ * the system property {@value #MMAP_PROPERTY} to {@code true}. Mapped regions are only released when they are
+ * garbage-collected: until then the file stays locked on Windows, and truncating the file while it is read
+ * crashes the JVM (SIGBUS) or raises an {@link InternalError}. Regions of a file are never memory-mapped.</p>
+ */
+final class FileChannels {
+
+    /**
+     * System property to enable memory-mapping of large files.
+     */
+    static final String MMAP_PROPERTY = "io.redlink.utils.mmap";
+    /**
+     * Whether large files are memory-mapped, see {@link #MMAP_PROPERTY}.
+     */
+    static final boolean MMAP_ENABLED = Boolean.getBoolean(MMAP_PROPERTY);
+    /**
+     * If {@link #MMAP_ENABLED enabled}, files of at least this size are memory-mapped.
+     */
+    static final long MMAP_THRESHOLD = 16L * 1024L * 1024L;
+    /**
+     * Max size of a single memory-mapped region.
+     */
+    static final long MMAP_WINDOW_SIZE = 64L * 1024L * 1024L;
+    /**
+     * Size of the direct buffer used for streaming.
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * One direct buffer per thread, so hashing many small files does not allocate (and later clean up) a direct
+     * buffer for each of them. It is taken out while in use, in case a consumer reads another channel.
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private FileChannels() {}
+
+    /**
+     * Read the complete file.
+     * @param file the file to read
+     * @param consumer receives the content of the file, buffer by buffer
+     */
+    static void read(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            read(channel, consumer);
+        }
+    }
+
+    /**
+     * Read the remaining content of the channel, starting at its current position.
+     * @param channel the channel to read
+     * @param consumer receives the content of the file, buffer by buffer
+     */
+    static void read(FileChannel channel, Consumer<ByteBuffer> consumer) throws IOException {
+        final long position = channel.position();
+        final long length = channel.size() - position;
+        if (MMAP_ENABLED && length >= MMAP_THRESHOLD) {
+            map(channel, position, length, consumer);
+            channel.position(position + length);
+        }
+        // streaming until EOF also covers files whose size is not known upfront (e.g. in /proc),
+        // and content appended after mapping
+        stream(channel, consumer);
+    }
+
+    /**
+     * Read the remaining content of the channel. {@link FileChannel}s are read starting at their current position,
+     * any other channel is streamed until EOF.
+     * @param channel the channel to read
+     * @param consumer receives the content, buffer by buffer
+     */
+    static void read(ReadableByteChannel channel, Consumer<ByteBuffer> consumer) throws IOException {
+        if (channel instanceof FileChannel) {
+            read((FileChannel) channel, consumer);
+        } else {
+            stream(channel, consumer);
+        }
+    }
+
+    /**
+     * Read a region of the channel, without changing the position of the channel. Regions are typically chunks of
+     * a file read in parallel, so they are read through a direct buffer and never memory-mapped.
+     * @param channel the channel to read
+     * @param position the start of the region
+     * @param length the length of the region
+     * @param consumer receives the content of the region, buffer by buffer
+     */
+    static void read(FileChannel channel, long position, long length, Consumer<ByteBuffer> consumer) throws IOException {
+        final ByteBuffer buffer = acquireBuffer();
+        try {
+            long pos = position;
+            final long end = position + length;
+            while (pos < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - pos));
+                final int read = channel.read(buffer, pos);
+                if (read < 0) {
+                    break;
+                }
+                pos += read;
+                buffer.flip();
+                consumer.accept(buffer);
+            }
+        } finally {
+            BUFFER.set(buffer);
+        }
+    }
+
+    private static void map(FileChannel channel, long position, long length, Consumer<ByteBuffer> consumer) throws IOException {
+        final long end = position + length;
+        for (long pos = position; pos < end; pos += MMAP_WINDOW_SIZE) {
+            consumer.accept(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MMAP_WINDOW_SIZE, end - pos)));
+        }
+    }
+
+    private static void stream(ReadableByteChannel channel, Consumer<ByteBuffer> consumer) throws IOException {
+        final ByteBuffer buffer = acquireBuffer();
+        try {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                consumer.accept(buffer);
+                buffer.clear();
+            }
+        } finally {
+            BUFFER.set(buffer);
+        }
+    }
+
+    private static ByteBuffer acquireBuffer() {
+        final ByteBuffer buffer = BUFFER.get();
+        if (buffer == null) {
+            // nested read on this thread
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        BUFFER.set(null);
+        return buffer;
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementations of the {@link PathUtils.CopyStrategy copy strategies} for regular files.
+ * All of them replace an existing destination, like {@link java.nio.file.StandardCopyOption#REPLACE_EXISTING}.
+ */
+final class FileCopier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileCopier.class);
+
+    /**
+     * Smaller files are not worth spawning a process to clone them.
+     */
+    static final long REFLINK_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The pairs of (source, destination) file stores where cloning is not supported,
+     * so no further attempts are made there.
+     */
+    private static final Set<List<FileStore>> REFLINK_UNSUPPORTED = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Disabled once {@code cp} turns out to be missing or not to support {@code --reflink} (e.g. BSD, busybox).
+     */
+    static volatile boolean reflinkAvailable = !System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * Option errors of BSD, busybox and (older) GNU {@code cp}, not to be confused with {@code EINVAL}
+     * ("Invalid argument") of the clone itself.
+     */
+    private static final Pattern CP_OPTION_ERROR = Pattern.compile(
+            "illegal option|unrecognized option|invalid option|invalid argument '|^[Uu]sage:", Pattern.MULTILINE);
+
+    /**
+     * The {@code cp} executable, only replaced by tests.
+     */
+    static String cpCommand = "cp";
+
+    private FileCopier() {}
+
+    /**
+     * Copy the content using {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * which allows the kernel to copy without passing the data through user space.
+     */
+    static void transfer(Path source, Path dest, boolean preserve) throws IOException {
+        if (isSameFile(source, dest)) {
+            return;
+        }
+        Files.deleteIfExists(dest);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            final long size = in.size();
+            long position = 0;
+            while (position < size) {
+                final long n = in.transferTo(position, size - position, out);
+                if (n <= 0) {
+                    // truncated while copying
+                    break;
+                }
+                position += n;
+            }
+        }
+        if (preserve) {
+            copyAttributes(source, dest);
+        }
+    }
+
+    /**
+     * Clone the file (sharing the data blocks until either copy is modified) on filesystems supporting it
+     * (e.g. btrfs, XFS), falling back to {@link #transfer(Path, Path, boolean)}.
+     * As there is no Java-API for this, cloning is delegated to {@code cp --reflink=always}.
+     */
+    static void reflink(Path source, Path dest, boolean preserve) throws IOException {
+        if (isSameFile(source, dest)) {
+            return;
+        }
+        if (reflinkAvailable && Files.size(source) >= REFLINK_THRESHOLD) {
+            final List<FileStore> stores = List.of(Files.getFileStore(source), fileStore(dest));
+            if (!REFLINK_UNSUPPORTED.contains(stores) && clone(source, dest, preserve, stores)) {
+                return;
+            }
+        }
+        transfer(source, dest, preserve);
+    }
+
+    private static boolean clone(Path source, Path dest, boolean preserve, List<FileStore> stores) throws IOException {
+        Files.deleteIfExists(dest);
+        final List<String> command = new ArrayList<>(List.of(cpCommand, "--reflink=always"));
+        if (preserve) {
+            command.add("--preserve=mode,timestamps");
+        }
+        command.addAll(List.of("--", source.toString(), dest.toString()));
+        final ProcessBuilder cp = new ProcessBuilder(command)
+                .redirectErrorStream(true);
+        // untranslated error messages
+        cp.environment().put("LC_ALL", "C");
+        final Process process;
+        try {
+            process = cp.start();
+        } catch (IOException e) {
+            LOG.debug("cp not available, reflink disabled: {}", e.getMessage());
+            reflinkAvailable = false;
+            return false;
+        }
+        try {
+            final String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            }
+            final int exitCode = process.waitFor();
+            if (exitCode == 0) {
+                return true;
+            }
+            if (isOptionUnsupported(output)) {
+                LOG.debug("cp does not support --reflink, reflink disabled: {}", output);
+                reflinkAvailable = false;
+            } else if (isCloneUnsupported(output)) {
+                LOG.debug("Cloning from {} to {} is not supported, falling back to copy: {}",
+                        stores.get(0), stores.get(1), output);
+                REFLINK_UNSUPPORTED.add(stores);
+            } else {
+                LOG.warn("Cloning {} to {} failed (exit code {}), falling back to copy: {}", source, dest, exitCode, output);
+            }
+            return false;
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while cloning " + source);
+        }
+    }
+
+    /**
+     * Whether {@code cp} rejected the options, i.e. it is not GNU {@code cp}.
+     */
+    private static boolean isOptionUnsupported(String cpOutput) {
+        return CP_OPTION_ERROR.matcher(cpOutput).find();
+    }
+
+    /**
+     * Whether {@code cp} failed because the file stores can't clone (between) each other:
+     * {@code EOPNOTSUPP}, {@code EXDEV} or {@code ENOTTY} (no clone-ioctl).
+     */
+    private static boolean isCloneUnsupported(String cpOutput) {
+        return cpOutput.contains("Operation not supported")
+                || cpOutput.contains("Invalid cross-device link")
+                || cpOutput.contains("Inappropriate ioctl for device");
+    }
+
+    /**
+     * Create a hard link to the source, falling back to {@link #transfer(Path, Path, boolean)} if this is not
+     * possible (on different file stores, or file stores without hard links). Any other error is thrown.
+     * Both paths share the same content and attributes afterwards, so this is only suitable for sources
+     * which are never modified.
+     */
+    static void hardLink(Path source, Path dest, boolean preserve) throws IOException {
+        if (isSameFile(source, dest)) {
+            return;
+        }
+        Files.deleteIfExists(dest);
+        try {
+            Files.createLink(dest, source);
+            return;
+        } catch (UnsupportedOperationException e) {
+            LOG.debug("Linking {} to {} not supported, falling back to copy: {}", source, dest, e.getMessage());
+        } catch (FileSystemException e) {
+            if (!isLinkUnsupported(e)) {
+                throw e;
+            }
+            LOG.debug("Linking {} to {} not possible, falling back to copy: {}", source, dest, e.getMessage());
+        }
+        transfer(source, dest, preserve);
+    }
+
+    /**
+     * Whether a hard link failed with {@code EXDEV} (cross-device) or {@code EOPNOTSUPP}.
+     */
+    private static boolean isLinkUnsupported(FileSystemException e) {
+        final String reason = e.getReason();
+        return reason != null
+                && (reason.contains("cross-device") || reason.contains("Operation not supported"));
+    }
+
+    /**
+     * Copying a file onto itself does nothing, like {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}.
+     * A symbolic link as destination is replaced, even if it points to the source.
+     */
+    private static boolean isSameFile(Path source, Path dest) throws IOException {
+        final BasicFileAttributes destAttrs;
+        try {
+            destAttrs = Files.readAttributes(dest, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        return !destAttrs.isSymbolicLink() && Files.isSameFile(source, dest);
+    }
+
+    /**
+     * Copy the timestamps and, where supported, the posix permissions.
+     */
+    static void copyAttributes(Path source, Path dest) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        final PosixFileAttributeView posix = Files.getFileAttributeView(dest, PosixFileAttributeView.class);
+        if (posix != null && Files.getFileAttributeView(source, PosixFileAttributeView.class) != null) {
+            posix.setPermissions(Files.getPosixFilePermissions(source));
+        }
+        Files.getFileAttributeView(dest, BasicFileAttributeView.class)
+                .setTimes(attrs.lastModifiedTime(), attrs.lastAccessTime(), attrs.creationTime());
+    }
+
+    private static FileStore fileStore(Path dest) throws IOException {
+        return Files.getFileStore(dest.toAbsolutePath().getParent());
+    }
+}
@@ -19,17 +19,25 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Utils for calculating hashes (md5, sha1, sha512)
+ * Utils for calculating hashes (md5, sha1, sha256, sha512, blake3)
  */
 @SuppressWarnings("squid:RedundantThrowsDeclarationCheck")
 public final class HashUtils {
@@ -53,10 +61,23 @@ public final class HashUtils {
         /**
          * sha2-512, creates 128 char digest.
          */
-        SHA512("SHA-512", 128);
+        SHA512("SHA-512", 128),
+        /**
+         * BLAKE3, creates 64 char digest.
+         * @see Blake3
+         */
+        BLAKE3(64);
 
         private final String algorithm;
         private final int digestLength;
+        /**
+         * Cloneable prototype, {@code null} if the provider does not support cloning.
+         */
+        private final MessageDigest prototype;
+        /**
+         * Per-thread digest for one-shot hashing of small inputs.
+         */
+        private final ThreadLocal<MessageDigest> pooledDigest;
 
         HashAlg(int digestLength) {
             this(null, digestLength);
@@ -65,19 +86,63 @@ public final class HashUtils {
         HashAlg(String algorithm, int digestLength) {
             this.algorithm = algorithm!=null?algorithm:name();
             this.digestLength = digestLength;
+            this.prototype = createPrototype(this.algorithm);
+            this.pooledDigest = ThreadLocal.withInitial(this::createDigest);
         }
 
-        private int getDigestLength() {
+        int getDigestLength() {
             return digestLength;
         }
-        
-        private MessageDigest createDigest() {
+
+        /**
+         * The name of the corresponding {@link javax.crypto.Mac HMAC}-algorithm, e.g. {@code HmacSHA256}.
+         */
+        String getHmacAlgorithm() {
+            return "Hmac" + algorithm.replace("-", "");
+        }
+
+        /**
+         * Create a new {@link MessageDigest}, cloned from a cached prototype where the provider supports it.
+         */
+        MessageDigest createDigest() {
+            if (prototype != null) {
+                try {
+                    return (MessageDigest) prototype.clone();
+                } catch (CloneNotSupportedException e) {
+                    // fall through to getInstance
+                }
+            }
             try {
                 return MessageDigest.getInstance(this.algorithm);
             } catch (NoSuchAlgorithmException e) {
                 throw new IllegalStateException("Can't create MessageDigest for " + this, e);
             }
         }
+
+        /**
+         * The (reset) {@link MessageDigest} bound to the current thread.
+         * Callers must complete the digest before (re)using it again on the same thread.
+         */
+        MessageDigest pooledDigest() {
+            final MessageDigest digest = pooledDigest.get();
+            digest.reset();
+            return digest;
+        }
+
+        private static MessageDigest createPrototype(String algorithm) {
+            if (Blake3Digest.ALGORITHM.equals(algorithm)) {
+                // not provided by the JDK
+                return new Blake3Digest();
+            }
+            try {
+                final MessageDigest digest = MessageDigest.getInstance(algorithm);
+                // check that cloning is supported
+                digest.clone();
+                return digest;
+            } catch (NoSuchAlgorithmException | CloneNotSupportedException e) {
+                return null;
+            }
+        }
     }
 
     public static String md5sum(String string) {
@@ -160,8 +225,54 @@ public final class HashUtils {
         return hash(HashAlg.SHA512, bytes);
     }
 
+    public static String blake3(String string) {
+        return hash(HashAlg.BLAKE3, string);
+    }
+
+    public static String blake3(File file) throws IOException {
+        return hash(HashAlg.BLAKE3, file);
+    }
+
+    /**
+     * Calculate the BLAKE3 hash of a file. Large files are hashed in parallel,
+     * using the {@link ForkJoinPool#commonPool() common pool}.
+     * @see #blake3(Path, ForkJoinPool)
+     */
+    public static String blake3(Path file) throws IOException {
+        return hash(HashAlg.BLAKE3, file);
+    }
+
+    /**
+     * Calculate the BLAKE3 hash of a file, hashing subtrees of large files in parallel.
+     * @param file the file to hash
+     * @param pool the pool used to hash in parallel
+     * @see Blake3#digest(Path, ForkJoinPool)
+     */
+    public static String blake3(Path file, ForkJoinPool pool) throws IOException {
+        return HexUtils.encode(Blake3.digest(file, pool));
+    }
+
+    public static String blake3(InputStream inStream) throws IOException {
+        return hash(HashAlg.BLAKE3, inStream);
+    }
+
+    public static String blake3(byte[] bytes) {
+        return hash(HashAlg.BLAKE3, bytes);
+    }
+
     public static String hash(HashAlg alg, String string) {
-        return calcHash(string, alg);
+        return HexUtils.encode(digest(alg, string));
+    }
+
+    /**
+     * Calculate the hash of a {@link CharSequence} (UTF-8). Long inputs are encoded and hashed in chunks,
+     * without allocating the complete encoded representation.
+     * @param alg the hash algorithm
+     * @param chars the characters to hash
+     * @see #hash(HashAlg, String)
+     */
+    public static String hash(HashAlg alg, CharSequence chars) {
+        return HexUtils.encode(digest(alg, chars));
     }
 
     public static String hash(HashAlg alg, File file) throws FileNotFoundException, IOException {
@@ -169,41 +280,483 @@ public final class HashUtils {
     }
 
     public static String hash(HashAlg alg, Path file) throws FileNotFoundException, IOException {
-        try (InputStream is = Files.newInputStream(file, StandardOpenOption.READ)) {
-            return hash(alg, is);
-        }
+        return HexUtils.encode(digest(alg, file));
     }
 
     public static String hash(HashAlg alg, InputStream is) throws IOException {
-        return calcHash(is, alg);
+        return HexUtils.encode(digest(alg, is));
     }
 
     public static String hash(HashAlg alg, byte[] bytes) {
-        return calcHash(bytes, alg);
+        return HexUtils.encode(digest(alg, bytes));
+    }
+
+    /**
+     * Calculate the raw (binary) digest of a String.
+     * @param alg the hash algorithm
+     * @param string the String to hash (UTF-8)
+     * @return the digest
+     * @see #hash(HashAlg, String)
+     */
+    public static byte[] digest(HashAlg alg, String string) {
+        return calcDigest(string, alg);
     }
 
-    private static String calcHash(String string, HashAlg algorithm) {
-        return calcHash(string.getBytes(StandardCharsets.UTF_8), algorithm);
+    /**
+     * Calculate the raw (binary) digest of a {@link CharSequence} (UTF-8). Long inputs are encoded and hashed
+     * in chunks, without allocating the complete encoded representation.
+     * @param alg the hash algorithm
+     * @param chars the characters to hash
+     * @return the digest
+     * @see #hash(HashAlg, CharSequence)
+     */
+    public static byte[] digest(HashAlg alg, CharSequence chars) {
+        return calcDigest(chars, alg);
     }
 
-    private static String calcHash(byte[] bytes, HashAlg algorithm) {
-        final MessageDigest m = algorithm.createDigest();
+    /**
+     * Calculate the raw (binary) digest of a File.
+     * @param alg the hash algorithm
+     * @param file the File to hash
+     * @return the digest
+     * @see #hash(HashAlg, File)
+     */
+    public static byte[] digest(HashAlg alg, File file) throws FileNotFoundException, IOException {
+        return digest(alg, file.toPath());
+    }
+
+    /**
+     * Calculate the raw (binary) digest of a file.
+     * @param alg the hash algorithm
+     * @param file the file to hash
+     * @return the digest
+     * @see #hash(HashAlg, Path)
+     */
+    public static byte[] digest(HashAlg alg, Path file) throws FileNotFoundException, IOException {
+        return calcDigest(file, alg);
+    }
+
+    /**
+     * Calculate the hash of a file, using a {@link DigestCache} to skip unchanged files.
+     * @param alg the hash algorithm
+     * @param file the file to hash
+     * @param cache the cache to lookup and store the digest
+     * @see #digest(HashAlg, Path, DigestCache)
+     */
+    public static String hash(HashAlg alg, Path file, DigestCache cache) throws IOException {
+        return HexUtils.encode(digest(alg, file, cache));
+    }
+
+    /**
+     * Calculate the raw (binary) digest of a file, using a {@link DigestCache} to skip unchanged files.
+     * If the cache contains a digest for the file in its current state (size, last-modified), the file is not read.
+     * @param alg the hash algorithm
+     * @param file the file to hash
+     * @param cache the cache to lookup and store the digest
+     * @return the digest
+     */
+    public static byte[] digest(HashAlg alg, Path file, DigestCache cache) throws IOException {
+        return CachedDigests.digest(cache, file, alg.name(), f -> calcDigest(f, alg));
+    }
+
+    /**
+     * Asynchronously calculate the hash of a file, using a shared pool of a bounded number of daemon threads.
+     * @param alg the hash algorithm
+     * @param file the file to hash
+     * @return the future hash, cancelling it stops reading the file
+     * @see #hashAsync(HashAlg, Path, ExecutorService)
+     */
+    public static CompletableFuture<String> hashAsync(HashAlg alg, Path file) {
+        return hashAsync(alg, file, null);
+    }
+
+    /**
+     * Asynchronously calculate the hash of a file. The file is read using an
+     * {@link AsynchronousFileChannel}, the calling thread is not blocked.
+     * On most platforms (e.g. Linux and macOS) the reads are blocking calls on the executor's threads, so every file
+     * being read occupies one executor thread while waiting for I/O: use a bounded executor.
+     * @param alg the hash algorithm
+     * @param file the file to hash
+     * @param executor the executor running the I/O completion handlers (and the hashing),
+     *                 {@code null} for the shared, bounded default pool.
+     * @return the future hash, cancelling it stops reading the file
+     */
+    public static CompletableFuture<String> hashAsync(HashAlg alg, Path file, ExecutorService executor) {
+        return digestAsync(alg, file, executor).thenApply(HexUtils::encode);
+    }
+
+    /**
+     * Asynchronously calculate the raw (binary) digest of a file.
+     * @param alg the hash algorithm
+     * @param file the file to hash
+     * @param executor the executor running the I/O completion handlers (and the hashing),
+     *                 {@code null} for the shared, bounded default pool.
+     * @return the future digest, cancelling it stops reading the file
+     * @see #hashAsync(HashAlg, Path, ExecutorService)
+     */
+    public static CompletableFuture<byte[]> digestAsync(HashAlg alg, Path file, ExecutorService executor) {
+        final MessageDigest digest = alg.createDigest();
+        return AsyncFileReader.read(file, executor, digest::update, digest::digest);
+    }
+
+    /**
+     * Calculate the raw (binary) digest of an {@link InputStream}.
+     * @param alg the hash algorithm
+     * @param is the InputStream to hash, will be consumed and closed.
+     * @return the digest
+     * @see #hash(HashAlg, InputStream)
+     */
+    public static byte[] digest(HashAlg alg, InputStream is) throws IOException {
+        return calcDigest(is, alg);
+    }
+
+    /**
+     * Calculate the raw (binary) digest of a byte-array.
+     * @param alg the hash algorithm
+     * @param bytes the bytes to hash
+     * @return the digest
+     * @see #hash(HashAlg, byte[])
+     */
+    public static byte[] digest(HashAlg alg, byte[] bytes) {
+        return calcDigest(bytes, alg);
+    }
+
+    /**
+     * Calculate the hash of the remaining content of a (heap or direct) {@link ByteBuffer}.
+     * @param alg the hash algorithm
+     * @param buffer the buffer to hash, its position is <strong>not</strong> modified.
+     */
+    public static String hash(HashAlg alg, ByteBuffer buffer) {
+        return HexUtils.encode(digest(alg, buffer));
+    }
+
+    /**
+     * Calculate the hash of the remaining content of several {@link ByteBuffer}s, as if they were concatenated.
+     * @param alg the hash algorithm
+     * @param buffers the buffers to hash, their positions are <strong>not</strong> modified.
+     */
+    public static String hash(HashAlg alg, ByteBuffer[] buffers) {
+        return HexUtils.encode(digest(alg, buffers));
+    }
+
+    /**
+     * Calculate the hash of the content of a {@link ReadableByteChannel}.
+     * @param alg the hash algorithm
+     * @param channel the channel to hash, will be consumed but <strong>not</strong> closed.
+     */
+    public static String hash(HashAlg alg, ReadableByteChannel channel) throws IOException {
+        return HexUtils.encode(digest(alg, channel));
+    }
+
+    /**
+     * Calculate the raw (binary) digest of the remaining content of a (heap or direct) {@link ByteBuffer}.
+     * @param alg the hash algorithm
+     * @param buffer the buffer to hash, its position is <strong>not</strong> modified.
+     * @return the digest
+     * @see #hash(HashAlg, ByteBuffer)
+     */
+    public static byte[] digest(HashAlg alg, ByteBuffer buffer) {
+        final MessageDigest m = alg.pooledDigest();
+        m.update(buffer.duplicate());
+        return m.digest();
+    }
+
+    /**
+     * Calculate the raw (binary) digest of the remaining content of several {@link ByteBuffer}s,
+     * as if they were concatenated.
+     * @param alg the hash algorithm
+     * @param buffers the buffers to hash, their positions are <strong>not</strong> modified.
+     * @return the digest
+     * @see #hash(HashAlg, ByteBuffer[])
+     */
+    public static byte[] digest(HashAlg alg, ByteBuffer[] buffers) {
+        final MessageDigest m = alg.pooledDigest();
+        for (ByteBuffer buffer : buffers) {
+            m.update(buffer.duplicate());
+        }
+        return m.digest();
+    }
+
+    /**
+     * Calculate the raw (binary) digest of the content of a {@link ReadableByteChannel}.
+     * A {@link java.nio.channels.FileChannel} is read from its current position through a direct buffer; large files are only
+     * memory-mapped if the system property {@code io.redlink.utils.mmap} is {@code true}.
+     * @param alg the hash algorithm
+     * @param channel the channel to hash, will be consumed but <strong>not</strong> closed.
+     * @return the digest
+     * @see #hash(HashAlg, ReadableByteChannel)
+     */
+    public static byte[] digest(HashAlg alg, ReadableByteChannel channel) throws IOException {
+        final MessageDigest m = alg.createDigest();
+        FileChannels.read(channel, m::update);
+        return m.digest();
+    }
+
+    /**
+     * Calculate the {@link TreeHash} of a file, using chunks of {@link TreeHash#DEFAULT_CHUNK_SIZE} bytes
+     * and the {@link ForkJoinPool#commonPool() common pool}.
+     * @param alg the hash algorithm for leaves and nodes of the tree
+     * @param file the file to hash
+     * @see TreeHash
+     */
+    public static TreeHash treeHash(HashAlg alg, Path file) throws FileNotFoundException, IOException {
+        return treeHash(alg, file, TreeHash.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Calculate the {@link TreeHash} of a file using the {@link ForkJoinPool#commonPool() common pool}.
+     * @param alg the hash algorithm for leaves and nodes of the tree
+     * @param file the file to hash
+     * @param chunkSize the size of the chunks (leaves)
+     * @see TreeHash
+     */
+    public static TreeHash treeHash(HashAlg alg, Path file, int chunkSize) throws FileNotFoundException, IOException {
+        return treeHash(alg, file, chunkSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calculate the {@link TreeHash} of a file.
+     * @param alg the hash algorithm for leaves and nodes of the tree
+     * @param file the file to hash
+     * @param chunkSize the size of the chunks (leaves)
+     * @param pool the pool used to hash the chunks in parallel
+     * @see TreeHash
+     */
+    public static TreeHash treeHash(HashAlg alg, Path file, int chunkSize, ForkJoinPool pool) throws FileNotFoundException, IOException {
+        return TreeHash.calculate(alg, file, chunkSize, pool);
+    }
+
+    /**
+     * Calculate the {@link DirectoryHash} of a directory tree, hashing up to
+     * {@link Runtime#availableProcessors() availableProcessors} files in parallel.
+     * @param alg the hash algorithm
+     * @param root the root directory of the tree
+     * @see DirectoryHash
+     */
+    public static DirectoryHash hashTree(HashAlg alg, Path root) throws IOException {
+        return hashTree(alg, root, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Calculate the {@link DirectoryHash} of a directory tree.
+     * @param alg the hash algorithm
+     * @param root the root directory of the tree
+     * @param parallelism the max. number of files hashed in parallel
+     * @see DirectoryHash
+     */
+    public static DirectoryHash hashTree(HashAlg alg, Path root, int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        final ExecutorService executor = PathUtils.newDaemonPool(parallelism, "hashTree");
+        try {
+            return hashTree(alg, root, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Calculate the {@link DirectoryHash} of a directory tree.
+     * @param alg the hash algorithm
+     * @param root the root directory of the tree
+     * @param executor the executor used to hash the files, its size limits the number of files hashed in parallel
+     * @see DirectoryHash
+     */
+    public static DirectoryHash hashTree(HashAlg alg, Path root, Executor executor) throws IOException {
+        return DirectoryHash.calculate(alg, root, executor);
+    }
+
+    /**
+     * Create a reusable {@link HmacSigner} for the provided key.
+     * @param alg the hash algorithm of the HMAC
+     * @param key the secret key
+     * @see HmacSigner
+     */
+    public static HmacSigner hmac(HashAlg alg, byte[] key) {
+        return new HmacSigner(alg, key);
+    }
+
+    /**
+     * Calculate several hashes of a String in one go.
+     * @param algs the hash algorithms to calculate
+     * @param string the String to hash
+     * @return the hashes, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, String> hash(Set<HashAlg> algs, String string) {
+        return toHashes(calcDigests(algs, string));
+    }
+
+    /**
+     * Calculate several hashes of a File, reading the file only once.
+     * @param algs the hash algorithms to calculate
+     * @param file the File to hash
+     * @return the hashes, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, String> hash(Set<HashAlg> algs, File file) throws FileNotFoundException, IOException {
+        return hash(algs, file.toPath());
+    }
+
+    /**
+     * Calculate several hashes of a file, reading the file only once.
+     * @param algs the hash algorithms to calculate
+     * @param file the file to hash
+     * @return the hashes, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, String> hash(Set<HashAlg> algs, Path file) throws FileNotFoundException, IOException {
+        return toHashes(calcDigests(algs, file));
+    }
+
+    /**
+     * Calculate several hashes of an {@link InputStream}, reading the stream only once.
+     * @param algs the hash algorithms to calculate
+     * @param is the InputStream to hash, will be consumed and closed.
+     * @return the hashes, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, String> hash(Set<HashAlg> algs, InputStream is) throws IOException {
+        return toHashes(calcDigests(algs, is));
+    }
+
+    /**
+     * Calculate several hashes of a byte-array in one go.
+     * @param algs the hash algorithms to calculate
+     * @param bytes the bytes to hash
+     * @return the hashes, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, String> hash(Set<HashAlg> algs, byte[] bytes) {
+        return toHashes(calcDigests(algs, bytes));
+    }
+
+    /**
+     * Calculate several raw (binary) digests of a file, reading the file only once.
+     * @param algs the hash algorithms to calculate
+     * @param file the file to hash
+     * @return the digests, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, byte[]> digest(Set<HashAlg> algs, Path file) throws FileNotFoundException, IOException {
+        return toDigests(calcDigests(algs, file));
+    }
+
+    /**
+     * Calculate several raw (binary) digests of an {@link InputStream}, reading the stream only once.
+     * @param algs the hash algorithms to calculate
+     * @param is the InputStream to hash, will be consumed and closed.
+     * @return the digests, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, byte[]> digest(Set<HashAlg> algs, InputStream is) throws IOException {
+        return toDigests(calcDigests(algs, is));
+    }
+
+    /**
+     * Calculate several raw (binary) digests of a byte-array in one go.
+     * @param algs the hash algorithms to calculate
+     * @param bytes the bytes to hash
+     * @return the digests, keyed by the requested algorithm
+     */
+    public static Map<HashAlg, byte[]> digest(Set<HashAlg> algs, byte[] bytes) {
+        return toDigests(calcDigests(algs, bytes));
+    }
+
+    private static Map<HashAlg, MessageDigest> calcDigests(Set<HashAlg> algs, Path file) throws IOException {
+        final Map<HashAlg, MessageDigest> digests = createDigests(algs);
+        FileChannels.read(file, buffer -> {
+            for (MessageDigest digest : digests.values()) {
+                buffer.mark();
+                digest.update(buffer);
+                buffer.reset();
+            }
+        });
+        return digests;
+    }
+
+    private static Map<HashAlg, MessageDigest> calcDigests(Set<HashAlg> algs, InputStream is) throws IOException {
+        final Map<HashAlg, MessageDigest> digests = createDigests(algs);
+        try (InputStream in = is) {
+            final byte[] buff = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = in.read(buff)) >= 0) {
+                for (MessageDigest digest : digests.values()) {
+                    digest.update(buff, 0, bytesRead);
+                }
+            }
+        }
+        return digests;
+    }
+
+    private static Map<HashAlg, MessageDigest> calcDigests(Set<HashAlg> algs, CharSequence chars) {
+        if (chars instanceof String && chars.length() <= Utf8Encoder.STREAMING_THRESHOLD) {
+            return calcDigests(algs, ((String) chars).getBytes(StandardCharsets.UTF_8));
+        }
+        final Map<HashAlg, MessageDigest> digests = createDigests(algs);
+        Utf8Encoder.encode(chars, (bytes, offset, length) -> {
+            for (MessageDigest digest : digests.values()) {
+                digest.update(bytes, offset, length);
+            }
+        });
+        return digests;
+    }
+
+    private static Map<HashAlg, MessageDigest> calcDigests(Set<HashAlg> algs, byte[] bytes) {
+        final Map<HashAlg, MessageDigest> digests = createDigests(algs);
+        for (MessageDigest digest : digests.values()) {
+            digest.update(bytes);
+        }
+        return digests;
+    }
+
+    private static Map<HashAlg, MessageDigest> createDigests(Set<HashAlg> algs) {
+        final Map<HashAlg, MessageDigest> digests = new EnumMap<>(HashAlg.class);
+        for (HashAlg alg : algs) {
+            digests.put(alg, alg.createDigest());
+        }
+        return digests;
+    }
+
+    private static Map<HashAlg, String> toHashes(Map<HashAlg, MessageDigest> digests) {
+        final Map<HashAlg, String> hashes = new EnumMap<>(HashAlg.class);
+        digests.forEach((alg, digest) -> hashes.put(alg, HexUtils.encode(digest.digest())));
+        return Collections.unmodifiableMap(hashes);
+    }
+
+    private static Map<HashAlg, byte[]> toDigests(Map<HashAlg, MessageDigest> digests) {
+        final Map<HashAlg, byte[]> result = new EnumMap<>(HashAlg.class);
+        digests.forEach((alg, digest) -> result.put(alg, digest.digest()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static byte[] calcDigest(CharSequence chars, HashAlg algorithm) {
+        if (chars instanceof String && chars.length() <= Utf8Encoder.STREAMING_THRESHOLD) {
+            return calcDigest(((String) chars).getBytes(StandardCharsets.UTF_8), algorithm);
+        }
+        final MessageDigest m = algorithm.pooledDigest();
+        Utf8Encoder.encode(chars, m::update);
+        return m.digest();
+    }
+
+    private static byte[] calcDigest(byte[] bytes, HashAlg algorithm) {
+        final MessageDigest m = algorithm.pooledDigest();
         m.update(bytes);
-        final String hash = new BigInteger(1, m.digest()).toString(16);
-        return "0".repeat(Math.max(0, algorithm.getDigestLength() - hash.length())) +
-               hash;
+        return m.digest();
+    }
+
+    private static byte[] calcDigest(Path file, HashAlg algorithm) throws IOException {
+        if (algorithm == HashAlg.BLAKE3) {
+            // tree-structured, large files are hashed in parallel
+            return Blake3.digest(file, ForkJoinPool.commonPool());
+        }
+        final MessageDigest m = algorithm.createDigest();
+        FileChannels.read(file, m::update);
+        return m.digest();
     }
 
-    private static String calcHash(InputStream input, HashAlg algorithm) throws IOException {
+    private static byte[] calcDigest(InputStream input, HashAlg algorithm) throws IOException {
         try (DigestInputStream dis = wrapInputStream(input, algorithm)) {
             byte[] buff = new byte[4096];
             //noinspection StatementWithEmptyBody
-            while (dis.read(buff) > 0) {
+            while (dis.read(buff) != -1) {
                 // just read to get the Digest filled...
             }
-            final String hash = new BigInteger(1, dis.getMessageDigest().digest()).toString(16);
-            return "0".repeat(Math.max(0, algorithm.getDigestLength() - hash.length())) +
-                   hash;
+            return dis.getMessageDigest().digest();
         }
     }
 
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link OutputStream} that calculates one or more hashes of the data written through it.
+ *
+ * <p>The hashes are completed on the first call to one of the getters, after that no further data can be written.</p>
+ *
+ * @see HashUtils
+ */
+public class HashingOutputStream extends FilterOutputStream {
+
+    private final DigestState digests;
+    private long count = 0;
+
+    /**
+     * Create a HashingOutputStream.
+     * @param out the underlying OutputStream
+     * @param alg the hash algorithm
+     * @param more additional hash algorithms
+     */
+    public HashingOutputStream(OutputStream out, HashUtils.HashAlg alg, HashUtils.HashAlg... more) {
+        this(out, EnumSet.of(alg, more));
+    }
+
+    /**
+     * Create a HashingOutputStream.
+     * @param out the underlying OutputStream
+     * @param algs the hash algorithms
+     */
+    public HashingOutputStream(OutputStream out, Set<HashUtils.HashAlg> algs) {
+        super(out);
+        this.digests = new DigestState(algs);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        digests.checkOpen();
+        out.write(b);
+        digests.update((byte) b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        digests.checkOpen();
+        out.write(b, off, len);
+        digests.update(b, off, len);
+        count += len;
+    }
+
+    /**
+     * The number of bytes written.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The hash of the data written, hex-encoded as in {@link HashUtils#hash(HashUtils.HashAlg, byte[])}.
+     * @param alg the hash algorithm, must be one of those provided in the constructor
+     */
+    public String getHash(HashUtils.HashAlg alg) {
+        return HexUtils.encode(digests.complete(alg));
+    }
+
+    /**
+     * The raw digest of the data written, as in {@link HashUtils#digest(HashUtils.HashAlg, byte[])}.
+     * @param alg the hash algorithm, must be one of those provided in the constructor
+     */
+    public byte[] getDigest(HashUtils.HashAlg alg) {
+        return digests.complete(alg);
+    }
+
+    /**
+     * All hashes of the data written, hex-encoded.
+     */
+    public Map<HashUtils.HashAlg, String> getHashes() {
+        return digests.completeHex();
+    }
+}
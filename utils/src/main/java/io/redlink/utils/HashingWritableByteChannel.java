@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link WritableByteChannel} that calculates one or more hashes of the data written through it.
+ *
+ * <p>Only the bytes actually accepted by the underlying channel are hashed. The hashes are completed on the first
+ * call to one of the getters, after that no further data can be written.</p>
+ *
+ * @see HashUtils
+ */
+public class HashingWritableByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private final DigestState digests;
+    private long count = 0;
+
+    /**
+     * Create a HashingWritableByteChannel.
+     * @param channel the underlying channel
+     * @param alg the hash algorithm
+     * @param more additional hash algorithms
+     */
+    public HashingWritableByteChannel(WritableByteChannel channel, HashUtils.HashAlg alg, HashUtils.HashAlg... more) {
+        this(channel, EnumSet.of(alg, more));
+    }
+
+    /**
+     * Create a HashingWritableByteChannel.
+     * @param channel the underlying channel
+     * @param algs the hash algorithms
+     */
+    public HashingWritableByteChannel(WritableByteChannel channel, Set<HashUtils.HashAlg> algs) {
+        this.channel = channel;
+        this.digests = new DigestState(algs);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        digests.checkOpen();
+        final ByteBuffer written = src.duplicate();
+        final int bytesWritten = channel.write(src);
+        if (bytesWritten > 0) {
+            written.limit(written.position() + bytesWritten);
+            digests.update(written);
+            count += bytesWritten;
+        }
+        return bytesWritten;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The number of bytes written.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The hash of the data written, hex-encoded as in {@link HashUtils#hash(HashUtils.HashAlg, byte[])}.
+     * @param alg the hash algorithm, must be one of those provided in the constructor
+     */
+    public String getHash(HashUtils.HashAlg alg) {
+        return HexUtils.encode(digests.complete(alg));
+    }
+
+    /**
+     * The raw digest of the data written, as in {@link HashUtils#digest(HashUtils.HashAlg, byte[])}.
+     * @param alg the hash algorithm, must be one of those provided in the constructor
+     */
+    public byte[] getDigest(HashUtils.HashAlg alg) {
+        return digests.complete(alg);
+    }
+
+    /**
+     * All hashes of the data written, hex-encoded.
+     */
+    public Map<HashUtils.HashAlg, String> getHashes() {
+        return digests.completeHex();
+    }
+}
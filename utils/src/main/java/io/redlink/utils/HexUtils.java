@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Utils for (lower-case) hex-encoding of bytes and numbers.
+ *
+ * <p>Encoding is table-driven and writes into a pre-sized buffer, the resulting Strings are built from
+ * {@link StandardCharsets#ISO_8859_1 Latin-1} bytes.</p>
+ */
+public final class HexUtils {
+
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+
+    /**
+     * Hex-representation of every byte value: {@code HEX[2*b]} is the high, {@code HEX[2*b+1]} the low digit.
+     */
+    private static final byte[] HEX = new byte[512];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX[2 * i] = DIGITS[i >>> 4];
+            HEX[2 * i + 1] = DIGITS[i & 0x0f];
+        }
+    }
+
+    private HexUtils() {}
+
+    /**
+     * Hex-encode a byte-array.
+     * @param bytes the bytes to encode
+     * @return the lower-case hex-representation, two characters per byte
+     */
+    public static String encode(byte[] bytes) {
+        return encode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Hex-encode a part of a byte-array.
+     * @param bytes the bytes to encode
+     * @param offset the offset of the first byte to encode
+     * @param length the number of bytes to encode
+     * @return the lower-case hex-representation, two characters per byte
+     */
+    public static String encode(byte[] bytes, int offset, int length) {
+        final byte[] hex = new byte[2 * length];
+        encode(bytes, offset, length, hex, 0);
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Hex-encode a part of a byte-array into the provided buffer (ASCII).
+     * @param bytes the bytes to encode
+     * @param offset the offset of the first byte to encode
+     * @param length the number of bytes to encode
+     * @param dest the buffer to write the hex-characters to, requires {@code 2 * length} bytes of space
+     * @param destOffset the position in {@code dest} to start writing
+     * @return the position in {@code dest} after the last written character
+     */
+    public static int encode(byte[] bytes, int offset, int length, byte[] dest, int destOffset) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        Objects.checkFromIndexSize(destOffset, 2 * length, dest.length);
+        int pos = destOffset;
+        for (int i = offset; i < offset + length; i++) {
+            final int idx = (bytes[i] & 0xff) << 1;
+            dest[pos++] = HEX[idx];
+            dest[pos++] = HEX[idx + 1];
+        }
+        return pos;
+    }
+
+    /**
+     * Hex-encode a part of a byte-array into the provided buffer.
+     * @param bytes the bytes to encode
+     * @param offset the offset of the first byte to encode
+     * @param length the number of bytes to encode
+     * @param dest the buffer to write the hex-characters to, requires {@code 2 * length} chars of space
+     * @param destOffset the position in {@code dest} to start writing
+     * @return the position in {@code dest} after the last written character
+     */
+    public static int encode(byte[] bytes, int offset, int length, char[] dest, int destOffset) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        Objects.checkFromIndexSize(destOffset, 2 * length, dest.length);
+        int pos = destOffset;
+        for (int i = offset; i < offset + length; i++) {
+            final int idx = (bytes[i] & 0xff) << 1;
+            dest[pos++] = (char) HEX[idx];
+            dest[pos++] = (char) HEX[idx + 1];
+        }
+        return pos;
+    }
+
+    /**
+     * Hex-encode an {@code int}, zero-padded to 8 characters.
+     * @param value the value to encode
+     * @return the lower-case hex-representation of the value (unsigned)
+     */
+    public static String encode(int value) {
+        final byte[] hex = new byte[8];
+        encode(value, hex, 0);
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Hex-encode an {@code int} into the provided buffer (ASCII), zero-padded to 8 characters.
+     * @param value the value to encode
+     * @param dest the buffer to write the hex-characters to, requires 8 bytes of space
+     * @param destOffset the position in {@code dest} to start writing
+     * @return the position in {@code dest} after the last written character
+     */
+    public static int encode(int value, byte[] dest, int destOffset) {
+        Objects.checkFromIndexSize(destOffset, 8, dest.length);
+        int pos = destOffset;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            final int idx = ((value >>> shift) & 0xff) << 1;
+            dest[pos++] = HEX[idx];
+            dest[pos++] = HEX[idx + 1];
+        }
+        return pos;
+    }
+
+    /**
+     * Hex-encode a {@code long}, zero-padded to 16 characters.
+     * @param value the value to encode
+     * @return the lower-case hex-representation of the value (unsigned)
+     */
+    public static String encode(long value) {
+        final byte[] hex = new byte[16];
+        encode(value, hex, 0);
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Hex-encode a {@code long} into the provided buffer (ASCII), zero-padded to 16 characters.
+     * @param value the value to encode
+     * @param dest the buffer to write the hex-characters to, requires 16 bytes of space
+     * @param destOffset the position in {@code dest} to start writing
+     * @return the position in {@code dest} after the last written character
+     */
+    public static int encode(long value, byte[] dest, int destOffset) {
+        Objects.checkFromIndexSize(destOffset, 16, dest.length);
+        final int pos = encode((int) (value >>> 32), dest, destOffset);
+        return encode((int) value, dest, pos);
+    }
+
+    /**
+     * Decode a hex-encoded String (upper- or lower-case).
+     * @param hex the hex-representation, must have an even number of characters
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the input is not a valid hex-representation
+     */
+    public static byte[] decode(CharSequence hex) {
+        final int length = hex.length();
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("Odd number of hex-characters: " + length);
+        }
+        final byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((digit(hex, 2 * i) << 4) | digit(hex, 2 * i + 1));
+        }
+        return bytes;
+    }
+
+    private static int digit(CharSequence hex, int index) {
+        final char c = hex.charAt(index);
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new IllegalArgumentException("Invalid hex-character '" + c + "' at position " + index);
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Calculates HMACs (RFC 2104) with a fixed key, e.g. {@code HmacSHA256}.
+ *
+ * <p>The {@link Mac} is initialized with the key only once, every message is signed with a fresh copy
+ * cloned from the initialized instance (where the provider supports it). No keyed {@link Mac} is kept
+ * beyond a single call, so the key material is only referenced by the signer itself. Reuse a signer for
+ * many messages instead of creating one per message.</p>
+ * <p>This class is thread-safe.</p>
+ *
+ * @see HashUtils#hmac(HashUtils.HashAlg, byte[])
+ */
+public final class HmacSigner {
+
+    private final HashUtils.HashAlg algorithm;
+    private final SecretKeySpec key;
+    /**
+     * Initialized, cloneable prototype, {@code null} if the provider does not support cloning.
+     */
+    private final Mac prototype;
+
+    /**
+     * Create a signer.
+     * @param algorithm the hash algorithm of the HMAC
+     * @param key the secret key
+     * @throws IllegalArgumentException if the key is empty or rejected by the provider, or for {@link HashUtils.HashAlg#BLAKE3}
+     */
+    public HmacSigner(HashUtils.HashAlg algorithm, byte[] key) {
+        if (algorithm == HashUtils.HashAlg.BLAKE3) {
+            throw new IllegalArgumentException("HMAC is not defined for BLAKE3, use Blake3.newKeyedInstance(byte[]) instead");
+        }
+        this.algorithm = algorithm;
+        this.key = new SecretKeySpec(key, algorithm.getHmacAlgorithm());
+        final Mac mac = createMac();
+        Mac clone;
+        try {
+            clone = (Mac) mac.clone();
+        } catch (CloneNotSupportedException e) {
+            clone = null;
+        }
+        this.prototype = clone != null ? mac : null;
+    }
+
+    /**
+     * Create a signer, using the UTF-8 representation of the key.
+     * @param algorithm the hash algorithm of the HMAC
+     * @param key the secret key
+     */
+    public HmacSigner(HashUtils.HashAlg algorithm, String key) {
+        this(algorithm, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public HashUtils.HashAlg getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The HMAC of a String (UTF-8), hex-encoded.
+     */
+    public String hash(String string) {
+        return HexUtils.encode(digest(string));
+    }
+
+    /**
+     * The HMAC of a byte-array, hex-encoded.
+     */
+    public String hash(byte[] bytes) {
+        return HexUtils.encode(digest(bytes));
+    }
+
+    /**
+     * The HMAC of the remaining content of a {@link ByteBuffer}, hex-encoded.
+     * @param buffer the data, the position of the buffer is <strong>not</strong> modified.
+     */
+    public String hash(ByteBuffer buffer) {
+        return HexUtils.encode(digest(buffer));
+    }
+
+    /**
+     * The HMAC of a file, hex-encoded.
+     */
+    public String hash(Path file) throws IOException {
+        return HexUtils.encode(digest(file));
+    }
+
+    /**
+     * The HMAC of an {@link InputStream}, hex-encoded.
+     * @param is the data, the stream will be consumed and closed.
+     */
+    public String hash(InputStream is) throws IOException {
+        return HexUtils.encode(digest(is));
+    }
+
+    /**
+     * The raw (binary) HMAC of a String (UTF-8).
+     */
+    public byte[] digest(String string) {
+        final Mac mac = newMac();
+        if (string.length() <= Utf8Encoder.STREAMING_THRESHOLD) {
+            return mac.doFinal(string.getBytes(StandardCharsets.UTF_8));
+        }
+        Utf8Encoder.encode(string, mac::update);
+        return mac.doFinal();
+    }
+
+    /**
+     * The raw (binary) HMAC of a byte-array.
+     */
+    public byte[] digest(byte[] bytes) {
+        return newMac().doFinal(bytes);
+    }
+
+    /**
+     * The raw (binary) HMAC of the remaining content of a {@link ByteBuffer}.
+     * @param buffer the data, the position of the buffer is <strong>not</strong> modified.
+     */
+    public byte[] digest(ByteBuffer buffer) {
+        final Mac mac = newMac();
+        mac.update(buffer.duplicate());
+        return mac.doFinal();
+    }
+
+    /**
+     * The raw (binary) HMAC of a file.
+     */
+    public byte[] digest(Path file) throws IOException {
+        final Mac mac = newMac();
+        FileChannels.read(file, mac::update);
+        return mac.doFinal();
+    }
+
+    /**
+     * The raw (binary) HMAC of an {@link InputStream}.
+     * @param is the data, the stream will be consumed and closed.
+     */
+    public byte[] digest(InputStream is) throws IOException {
+        final Mac mac = newMac();
+        try (InputStream in = is) {
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                mac.update(buffer, 0, read);
+            }
+        }
+        return mac.doFinal();
+    }
+
+    /**
+     * Verify the HMAC of a message, in constant time.
+     * @param bytes the message
+     * @param expected the expected HMAC
+     * @return {@code true} if the HMAC of the message equals the expected HMAC
+     */
+    public boolean verify(byte[] bytes, byte[] expected) {
+        return MessageDigest.isEqual(digest(bytes), expected);
+    }
+
+    /**
+     * Verify the HMAC of a message, in constant time.
+     * @param string the message (UTF-8)
+     * @param expected the expected HMAC, hex-encoded
+     * @return {@code true} if the HMAC of the message equals the expected HMAC
+     */
+    public boolean verify(String string, String expected) {
+        final byte[] expectedDigest;
+        try {
+            expectedDigest = HexUtils.decode(expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(digest(string), expectedDigest);
+    }
+
+    @Override
+    public String toString() {
+        return "HmacSigner{" + algorithm.getHmacAlgorithm() + '}';
+    }
+
+    /**
+     * Create a new, initialized {@link Mac}, cloned from the prototype where the provider supports it.
+     */
+    private Mac newMac() {
+        if (prototype != null) {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                // fall through
+            }
+        }
+        return createMac();
+    }
+
+    private Mac createMac() {
+        try {
+            final Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Can't create Mac for " + key.getAlgorithm(), e);
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("Invalid key for " + key.getAlgorithm(), e);
+        }
+    }
+}
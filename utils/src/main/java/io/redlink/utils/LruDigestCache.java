@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory {@link DigestCache} with LRU-eviction, optionally persisted to an index-file.
+ *
+ * <p>Entries are keyed on the identity of the file ({@link BasicFileAttributes#fileKey() fileKey}, e.g. device and
+ * inode, or the absolute path if the file-system does not provide a fileKey), its size, last-modified-time and
+ * the algorithm.</p>
+ * <p>If an index-file is provided, it is loaded on creation and written on {@link #save()} / {@link #close()}.
+ * The index is a compact binary file, replaced atomically when saved. A missing or unreadable index results in
+ * an empty cache.</p>
+ * <p>This class is thread-safe.</p>
+ */
+public final class LruDigestCache implements DigestCache, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LruDigestCache.class);
+
+    private static final int INDEX_MAGIC = 0x52444331; // "RDC1"
+
+    private final int maxEntries;
+    private final Path indexFile;
+    private final LinkedHashMap<Key, byte[]> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Create an in-memory cache.
+     * @param maxEntries the max. number of cached digests
+     */
+    public LruDigestCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * Create a cache persisted to the provided index-file.
+     * @param maxEntries the max. number of cached digests
+     * @param indexFile the index-file, loaded if it exists. May be {@code null} for an in-memory cache.
+     */
+    public LruDigestCache(int maxEntries, Path indexFile) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.indexFile = indexFile;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > LruDigestCache.this.maxEntries;
+            }
+        };
+        if (indexFile != null) {
+            load();
+        }
+    }
+
+    @Override
+    public synchronized byte[] get(Path file, BasicFileAttributes attributes, String algorithm) {
+        final byte[] digest = entries.get(new Key(file, attributes, algorithm));
+        if (digest == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return digest.clone();
+    }
+
+    @Override
+    public synchronized void put(Path file, BasicFileAttributes attributes, String algorithm, byte[] digest) {
+        entries.put(new Key(file, attributes, algorithm), digest.clone());
+    }
+
+    /**
+     * The number of cached digests.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Remove all cached digests.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Write the index-file. Does nothing for in-memory caches.
+     */
+    public synchronized void save() throws IOException {
+        if (indexFile == null) {
+            return;
+        }
+        final Path parent = indexFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path tmp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(entries.size());
+                // eldest first, so the LRU-order is restored on load
+                for (Map.Entry<Key, byte[]> entry : entries.entrySet()) {
+                    final Key key = entry.getKey();
+                    out.writeUTF(key.identity);
+                    out.writeLong(key.size);
+                    out.writeLong(key.lastModified);
+                    out.writeUTF(key.algorithm);
+                    out.writeByte(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * {@link #save() Save} the index-file.
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                LOG.warn("Ignoring digest-index {}: unknown format", indexFile);
+                return;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final Key key = new Key(in.readUTF(), in.readLong(), in.readLong(), in.readUTF());
+                final byte[] digest = new byte[in.readUnsignedByte()];
+                in.readFully(digest);
+                entries.put(key, digest);
+            }
+        } catch (NoSuchFileException e) {
+            LOG.debug("Digest-index {} does not exist (yet)", indexFile);
+        } catch (IOException e) {
+            LOG.warn("Unable to read digest-index {}, starting with an empty cache", indexFile, e);
+            entries.clear();
+        }
+    }
+
+    private static final class Key {
+        private final String identity;
+        private final long size;
+        private final long lastModified;
+        private final String algorithm;
+
+        Key(Path file, BasicFileAttributes attributes, String algorithm) {
+            this(attributes.fileKey() != null
+                            ? attributes.fileKey().toString()
+                            : file.toAbsolutePath().normalize().toString(),
+                    attributes.size(),
+                    attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    algorithm);
+        }
+
+        Key(String identity, long size, long lastModified, String algorithm) {
+            this.identity = identity;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return size == key.size
+                    && lastModified == key.lastModified
+                    && identity.equals(key.identity)
+                    && algorithm.equals(key.algorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(identity, size, lastModified, algorithm);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental <a href="https://github.com/aappleby/smhasher/wiki/MurmurHash3">MurmurHash3</a>, x64 128-bit variant.
+ */
+final class Murmur3Hash128 extends StripedHasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+
+    Murmur3Hash128(int seed) {
+        super(16);
+        this.h1 = seed & 0xffffffffL;
+        this.h2 = seed & 0xffffffffL;
+    }
+
+    @Override
+    void processStripe(byte[] bytes, int offset) {
+        mix(getLong(bytes, offset), getLong(bytes, offset + 8));
+    }
+
+    @Override
+    void processStripe(ByteBuffer bytes, int index) {
+        mix(getLong(bytes, index), getLong(bytes, index + 8));
+    }
+
+    private void mix(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    @Override
+    byte[] complete(byte[] tail, int tailLength, long totalLength) {
+        if (tailLength > 8) {
+            h2 ^= mixK2(littleEndian(tail, 8, tailLength - 8));
+        }
+        if (tailLength > 0) {
+            h1 ^= mixK1(littleEndian(tail, 0, Math.min(8, tailLength)));
+        }
+
+        h1 ^= totalLength;
+        h2 ^= totalLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        final byte[] digest = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            digest[i] = (byte) (h1 >>> (8 * i));
+            digest[8 + i] = (byte) (h2 >>> (8 * i));
+        }
+        return digest;
+    }
+
+    private static long littleEndian(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -19,6 +19,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.file.CopyOption;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystemLoopException;
@@ -26,11 +28,26 @@ import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.nio.file.FileVisitResult.CONTINUE;
 import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
@@ -43,8 +60,42 @@ public final class PathUtils {
 
     private static final Logger LOG = LoggerFactory.getLogger(PathUtils.class);
 
+    private static final ProgressListener NO_PROGRESS = new ProgressListener() {};
+
+    /**
+     * Max. number of file-operations submitted but not yet completed during a parallel copy or delete.
+     */
+    static final int MAX_PENDING_OPERATIONS = 1024;
+
     private PathUtils() {}
 
+    /**
+     * The mechanism used to copy regular files. Directories and other files are always copied
+     * with {@link Files#copy(Path, Path, CopyOption...)}.
+     */
+    public enum CopyStrategy {
+        /**
+         * {@link Files#copy(Path, Path, CopyOption...)}, leaving the mechanism to the JDK.
+         */
+        DEFAULT,
+        /**
+         * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+         * copying in the kernel (e.g. {@code sendfile}/{@code copy_file_range}) without passing the data through
+         * user space.
+         */
+        TRANSFER,
+        /**
+         * Clone the file on copy-on-write filesystems (e.g. btrfs, XFS), so the copy initially shares all data
+         * blocks with the source. Falls back to {@link #TRANSFER} where cloning is not supported, and for small files.
+         */
+        REFLINK,
+        /**
+         * Create a hard link instead of a copy, falling back to {@link #TRANSFER} across file stores.
+         * Source and copy share the content <em>and</em> the attributes, so only use this for immutable inputs.
+         */
+        HARDLINK
+    }
+
     /**
      * Copy a file/directory.
      * @param source the source
@@ -61,7 +112,18 @@ public final class PathUtils {
      * @param preserve preserve attributes
      */
     public static void copy(Path source, Path dest, boolean preserve) throws IOException {
-        doCopy(source, dest, preserve, false);
+        copy(source, dest, preserve, CopyStrategy.DEFAULT);
+    }
+
+    /**
+     * Copy a file/directory
+     * @param source the source
+     * @param dest the destination
+     * @param preserve preserve attributes
+     * @param strategy the mechanism used to copy regular files
+     */
+    public static void copy(Path source, Path dest, boolean preserve, CopyStrategy strategy) throws IOException {
+        doCopy(source, dest, preserve, strategy, false);
     }
 
     /**
@@ -80,7 +142,80 @@ public final class PathUtils {
      * @param preserve preserve attributes
      */
     public static void copyRecursive(Path source, Path dest, boolean preserve) throws IOException {
-        doCopy(source, dest, preserve, true);
+        doCopy(source, dest, preserve, CopyStrategy.DEFAULT, true);
+    }
+
+    /**
+     * Recursively copy a directory, optionally copying several files in parallel and reporting the progress.
+     * @param source the source
+     * @param dest the destination
+     * @param options the options of the copy
+     */
+    public static void copyRecursive(Path source, Path dest, CopyOptions options) throws IOException {
+        final ProgressListener listener = options.getListener() != null ? options.getListener() : NO_PROGRESS;
+        if (options.getExecutor() != null) {
+            copyTree(source, dest, options.isPreserve(), options.getStrategy(), options.getExecutor(), listener);
+        } else if (options.getParallelism() > 1) {
+            final ExecutorService executor = newDaemonPool(options.getParallelism(), "copyRecursive");
+            try {
+                copyTree(source, dest, options.isPreserve(), options.getStrategy(), executor, listener);
+            } finally {
+                executor.shutdownNow();
+            }
+        } else if (options.getListener() != null) {
+            copyTree(source, dest, options.isPreserve(), options.getStrategy(), Runnable::run, listener);
+        } else {
+            doCopy(source, dest, options.isPreserve(), options.getStrategy(), true);
+        }
+    }
+
+    private static void copyTree(Path source, Path dest, boolean preserve, CopyStrategy strategy, Executor executor,
+                                 ProgressListener listener) throws IOException {
+        final EnumSet<FileVisitOption> visitOptions = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+        final Progress progress = Progress.start(listener, source, visitOptions);
+        final ParallelTreeCopier copier = new ParallelTreeCopier(source, dest, preserve, strategy, executor, progress);
+        try {
+            Files.walkFileTree(source, visitOptions, Integer.MAX_VALUE, copier);
+        } finally {
+            copier.await();
+            progress.finished();
+        }
+        copier.checkFailure();
+    }
+
+    /**
+     * Mirror a directory: copy files which are missing or modified in the destination,
+     * comparing size and modification time. Extraneous entries in the destination are kept.
+     * @param source the source
+     * @param dest the destination
+     * @return the applied changes
+     * @throws NoSuchFileException if {@code source} does not exist
+     * @see #sync(Path, Path, SyncOptions)
+     */
+    public static SyncReport sync(Path source, Path dest) throws IOException {
+        return sync(source, dest, SyncOptions.create());
+    }
+
+    /**
+     * Mirror a directory: copy files which are missing or modified in the destination, optionally deleting
+     * extraneous entries. Copied files and all directories get the modification time of their source, so
+     * unchanged files are detected by size and modification time (or by digest, if configured).
+     * @param source the source
+     * @param dest the destination
+     * @param options the options of the sync
+     * @return the applied changes
+     * @throws NoSuchFileException if {@code source} does not exist
+     */
+    public static SyncReport sync(Path source, Path dest, SyncOptions options) throws IOException {
+        if (options.getParallelism() == 1) {
+            return TreeSync.sync(source, dest, options, Runnable::run);
+        }
+        final ExecutorService executor = newDaemonPool(options.getParallelism(), "sync");
+        try {
+            return TreeSync.sync(source, dest, options, executor);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     /**
@@ -107,20 +242,122 @@ public final class PathUtils {
         Files.walkFileTree(path, visitOptions, Integer.MAX_VALUE, new TreeDeleter());
     }
 
+    /**
+     * Recursively delete a file/directory, deleting several files in parallel.
+     * Directories are deleted bottom-up, once all their children are deleted.
+     * Failures do not abort the deletion, they are collected in the returned report.
+     * @param path the file/directory to delete
+     * @param followSymlinks whether to follow symlinks while deleting
+     * @param parallelism the max. number of files deleted in parallel
+     * @return the report of deleted entries and failures
+     * @throws NoSuchFileException if {@code path} does not exist
+     */
+    public static DeleteReport deleteRecursive(Path path, boolean followSymlinks, int parallelism) throws IOException {
+        return deleteRecursive(path, followSymlinks, parallelism, NO_PROGRESS);
+    }
+
+    /**
+     * Recursively delete a file/directory, deleting several files in parallel and reporting the progress.
+     * Directories are deleted bottom-up, once all their children are deleted.
+     * Failures do not abort the deletion, they are collected in the returned report.
+     * @param path the file/directory to delete
+     * @param followSymlinks whether to follow symlinks while deleting
+     * @param parallelism the max. number of files deleted in parallel
+     * @param listener notified about the progress of the deletion
+     * @return the report of deleted entries and failures
+     * @throws NoSuchFileException if {@code path} does not exist
+     */
+    public static DeleteReport deleteRecursive(Path path, boolean followSymlinks, int parallelism,
+                                               ProgressListener listener) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        final ExecutorService executor = newDaemonPool(parallelism, "deleteRecursive");
+        try {
+            return deleteRecursive(path, followSymlinks, executor, listener);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Recursively delete a file/directory, deleting the files on the provided executor.
+     * Directories are deleted bottom-up, once all their children are deleted.
+     * Failures do not abort the deletion, they are collected in the returned report.
+     * @param path the file/directory to delete
+     * @param followSymlinks whether to follow symlinks while deleting
+     * @param executor the executor used to delete the files, its size limits the number of files deleted in parallel
+     * @return the report of deleted entries and failures
+     * @throws NoSuchFileException if {@code path} does not exist
+     */
+    public static DeleteReport deleteRecursive(Path path, boolean followSymlinks, Executor executor) throws IOException {
+        return deleteRecursive(path, followSymlinks, executor, NO_PROGRESS);
+    }
+
+    /**
+     * Recursively delete a file/directory, deleting the files on the provided executor and reporting the progress.
+     * Directories are deleted bottom-up, once all their children are deleted.
+     * Failures do not abort the deletion, they are collected in the returned report.
+     * @param path the file/directory to delete
+     * @param followSymlinks whether to follow symlinks while deleting
+     * @param executor the executor used to delete the files, its size limits the number of files deleted in parallel
+     * @param listener notified about the progress of the deletion
+     * @return the report of deleted entries and failures
+     * @throws NoSuchFileException if {@code path} does not exist
+     */
+    public static DeleteReport deleteRecursive(Path path, boolean followSymlinks, Executor executor,
+                                               ProgressListener listener) throws IOException {
+        final EnumSet<FileVisitOption> visitOptions;
+        if (followSymlinks) {
+            visitOptions = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+        } else {
+            visitOptions = EnumSet.noneOf(FileVisitOption.class);
+        }
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            throw new NoSuchFileException(path.toString());
+        }
+
+        final Progress progress = Progress.start(listener, path, visitOptions);
+        final ParallelTreeDeleter deleter = new ParallelTreeDeleter(executor, progress);
+        try {
+            Files.walkFileTree(path, visitOptions, Integer.MAX_VALUE, deleter);
+        } finally {
+            deleter.await();
+            progress.finished();
+        }
+        return deleter.getReport();
+    }
+
 
     /**
      * Copy a file/directory
      * @param source the source
      * @param dest the destination
      * @param preserve preserve attributes
+     * @param strategy the mechanism used to copy regular files
      * @param recursive copy recursive the complete tree
      */
-    private static void doCopy(Path source, Path dest, boolean preserve, boolean recursive) throws IOException {
+    private static void doCopy(Path source, Path dest, boolean preserve, CopyStrategy strategy, boolean recursive)
+            throws IOException {
         if (recursive) {
             Files.walkFileTree(source,
                     EnumSet.of(FileVisitOption.FOLLOW_LINKS),
                     Integer.MAX_VALUE,
-                    new TreeCopier(source, dest, preserve));
+                    new TreeCopier(source, dest, preserve, strategy));
+        } else if (strategy != CopyStrategy.DEFAULT && Files.isRegularFile(source)) {
+            switch (strategy) {
+                case TRANSFER:
+                    FileCopier.transfer(source, dest, preserve);
+                    break;
+                case REFLINK:
+                    FileCopier.reflink(source, dest, preserve);
+                    break;
+                case HARDLINK:
+                    FileCopier.hardLink(source, dest, preserve);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported copy strategy: " + strategy);
+            }
         } else {
             final CopyOption[] options = (preserve) ?
                     new CopyOption[] { COPY_ATTRIBUTES, REPLACE_EXISTING } :
@@ -130,6 +367,19 @@ public final class PathUtils {
         }
     }
 
+    /**
+     * Create a fixed-size pool of daemon threads, so an abandoned pool does not keep the JVM alive.
+     * @param size the number of threads
+     * @param name the name of the threads
+     */
+    static ExecutorService newDaemonPool(int size, String name) {
+        return Executors.newFixedThreadPool(size, r -> {
+            final Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     private static class TreeDeleter extends SimpleFileVisitor<Path> {
         @Override
         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
@@ -144,15 +394,129 @@ public final class PathUtils {
         }
     }
 
+    /**
+     * Deletes the files on an {@link Executor} while walking the tree. Each directory is tracked by a future
+     * completing once all its children are deleted, the directory is deleted then unless a child failed.
+     */
+    private static class ParallelTreeDeleter implements FileVisitor<Path> {
+        private final Executor executor;
+        private final Progress progress;
+        private final Semaphore pendingDeletes = new Semaphore(MAX_PENDING_OPERATIONS);
+        /**
+         * The futures of the children of the directories currently visited, the innermost directory on top.
+         * Each future completes with {@code true} if the child (including its content) was deleted.
+         */
+        private final Deque<List<CompletableFuture<Boolean>>> children = new ArrayDeque<>();
+        private final LongAdder deletedFiles = new LongAdder();
+        private final LongAdder deletedDirectories = new LongAdder();
+        private final LongAdder freedBytes = new LongAdder();
+        private final ConcurrentSkipListMap<Path, IOException> failures = new ConcurrentSkipListMap<>();
+
+        ParallelTreeDeleter(Executor executor, Progress progress) {
+            this.executor = executor;
+            this.progress = progress;
+            children.push(new ArrayList<>());
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            children.push(new ArrayList<>());
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            final long size = attrs.size();
+            try {
+                pendingDeletes.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while deleting " + file);
+            }
+            try {
+                children.element().add(CompletableFuture.supplyAsync(() -> {
+                    final long start = System.nanoTime();
+                    try {
+                        Files.delete(file);
+                        deletedFiles.increment();
+                        freedBytes.add(size);
+                        progress.completed(file, size, System.nanoTime() - start);
+                        return true;
+                    } catch (IOException e) {
+                        failures.put(file, e);
+                        progress.failed(file, e);
+                        return false;
+                    } finally {
+                        pendingDeletes.release();
+                    }
+                }, executor));
+            } catch (RuntimeException e) {
+                pendingDeletes.release();
+                throw e;
+            }
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+            final List<CompletableFuture<Boolean>> content = children.pop();
+            if (exc != null) {
+                failures.put(dir, exc);
+                progress.directoryFailed(dir, exc);
+            }
+            children.element().add(CompletableFuture.allOf(content.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(v -> exc == null && content.stream().allMatch(CompletableFuture::join) && delete(dir)));
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            if (exc instanceof FileSystemLoopException) {
+                LOG.error("cycle detected: {}", file);
+            }
+            failures.put(file, exc);
+            progress.failed(file, exc);
+            children.element().add(CompletableFuture.completedFuture(false));
+            return CONTINUE;
+        }
+
+        private boolean delete(Path dir) {
+            try {
+                Files.delete(dir);
+                deletedDirectories.increment();
+                return true;
+            } catch (IOException e) {
+                failures.put(dir, e);
+                progress.directoryFailed(dir, e);
+                return false;
+            }
+        }
+
+        /**
+         * Wait for all submitted deletes, including those of directories left unfinished by an aborted walk.
+         */
+        void await() {
+            CompletableFuture.allOf(children.stream()
+                    .flatMap(List::stream)
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+
+        DeleteReport getReport() {
+            return new DeleteReport(deletedFiles.sum(), deletedDirectories.sum(), freedBytes.sum(), failures);
+        }
+    }
+
     private static class TreeCopier implements FileVisitor<Path> {
         private final Path source;
         private final Path target;
         private final boolean preserve;
+        private final CopyStrategy strategy;
 
-        TreeCopier(Path source, Path target, boolean preserve) {
+        TreeCopier(Path source, Path target, boolean preserve, CopyStrategy strategy) {
             this.source = source;
             this.target = target;
             this.preserve = preserve;
+            this.strategy = strategy;
         }
 
         @Override
@@ -173,7 +537,7 @@ public final class PathUtils {
         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
             final Path dest = target.resolve(source.relativize(file).toString());
 
-            PathUtils.doCopy(file, dest, preserve, false);
+            PathUtils.doCopy(file, dest, preserve, strategy, false);
             return CONTINUE;
         }
 
@@ -198,5 +562,146 @@ public final class PathUtils {
         }
     }
 
+    /**
+     * Creates the directories while walking the tree, but copies the files on an {@link Executor}.
+     * Each directory is tracked by a future completing once all its children are copied.
+     */
+    private static class ParallelTreeCopier implements FileVisitor<Path> {
+        private final Path source;
+        private final Path target;
+        private final boolean preserve;
+        private final CopyStrategy strategy;
+        private final Executor executor;
+        private final Progress progress;
+        private final Semaphore pendingCopies = new Semaphore(MAX_PENDING_OPERATIONS);
+        /**
+         * The futures of the children of the directories currently visited, the innermost directory on top.
+         */
+        private final Deque<List<CompletableFuture<Void>>> children = new ArrayDeque<>();
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+        ParallelTreeCopier(Path source, Path target, boolean preserve, CopyStrategy strategy, Executor executor,
+                           Progress progress) {
+            this.source = source;
+            this.target = target;
+            this.preserve = preserve;
+            this.strategy = strategy;
+            this.executor = executor;
+            this.progress = progress;
+            children.push(new ArrayList<>());
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            if (failure.get() != null) {
+                return FileVisitResult.TERMINATE;
+            }
+            final CopyOption[] options = (preserve) ?
+                    new CopyOption[] { COPY_ATTRIBUTES } : new CopyOption[0];
+
+            final Path newdir = target.resolve(source.relativize(dir).toString());
+            try {
+                Files.copy(dir, newdir, options);
+            } catch (FileAlreadyExistsException ignore) {
+                // ignored
+            }
+            children.push(new ArrayList<>());
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            if (failure.get() != null) {
+                return FileVisitResult.TERMINATE;
+            }
+            final Path dest = target.resolve(source.relativize(file).toString());
+            try {
+                pendingCopies.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while copying " + file);
+            }
+            try {
+                final long size = attrs.size();
+                children.element().add(CompletableFuture.runAsync(() -> {
+                    final long start = System.nanoTime();
+                    try {
+                        PathUtils.doCopy(file, dest, preserve, strategy, false);
+                        progress.completed(file, size, System.nanoTime() - start);
+                    } catch (IOException e) {
+                        progress.failed(file, e);
+                        throw fail(e);
+                    } finally {
+                        pendingCopies.release();
+                    }
+                }, executor));
+            } catch (RuntimeException e) {
+                pendingCopies.release();
+                throw e;
+            }
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+            CompletableFuture<Void> completed = CompletableFuture.allOf(children.pop().toArray(new CompletableFuture<?>[0]));
+            if (exc == null && preserve) {
+                final Path newDir = target.resolve(source.relativize(dir).toString());
+                final FileTime time = Files.getLastModifiedTime(dir);
+                completed = completed.thenRun(() -> {
+                    try {
+                        Files.setLastModifiedTime(newDir, time);
+                    } catch (IOException e) {
+                        progress.directoryFailed(newDir, e);
+                        throw fail(e);
+                    }
+                });
+            }
+            children.element().add(completed);
+            return CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            if (exc instanceof FileSystemLoopException) {
+                LOG.error("cycle detected: {}", file);
+            } else {
+                LOG.error("Unable to copy: {}", file, exc);
+            }
+            progress.failed(file, exc);
+            return CONTINUE;
+        }
+
+        private UncheckedIOException fail(IOException e) {
+            if (!failure.compareAndSet(null, e)) {
+                failure.get().addSuppressed(e);
+            }
+            return new UncheckedIOException(e);
+        }
+
+        /**
+         * Wait for all submitted copies, including those of directories left unfinished by an aborted walk.
+         */
+        void await() {
+            final CompletableFuture<?>[] pending = children.stream()
+                    .flatMap(List::stream)
+                    .toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.allOf(pending).join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof UncheckedIOException)) {
+                    throw e;
+                }
+                // recorded in failure
+            }
+        }
+
+        void checkFailure() throws IOException {
+            final IOException e = failure.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
 
 }
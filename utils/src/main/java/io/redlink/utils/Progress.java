@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe metrics of a long-running file operation: files and bytes done (and remaining, if the totals are known),
+ * errors, throughput and per-file latency.
+ * <p>Exceptions thrown by the {@link ProgressListener} are logged and ignored, they do not abort the operation.</p>
+ *
+ * @see ProgressListener
+ */
+public final class Progress {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Progress.class);
+
+    /**
+     * Min. duration of the window used to calculate the current throughput.
+     */
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ProgressListener listener;
+    private final long startTime;
+    private final long totalFiles;
+    private final long totalBytes;
+
+    private final LongAdder filesDone = new LongAdder();
+    private final LongAdder bytesDone = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder directoryErrors = new LongAdder();
+    private final LongAdder latencyTotal = new LongAdder();
+    private final LongAccumulator latencyMax = new LongAccumulator(Long::max, 0);
+
+    // the current throughput is calculated over the current and the previous window
+    private long windowStart;
+    private long windowBytes;
+    private long previousWindowStart;
+    private long previousWindowBytes;
+
+    private Progress(ProgressListener listener, long totalFiles, long totalBytes) {
+        this.listener = listener;
+        this.totalFiles = totalFiles;
+        this.totalBytes = totalBytes;
+        this.startTime = System.nanoTime();
+        this.windowStart = startTime;
+        this.previousWindowStart = startTime;
+    }
+
+    /**
+     * Start tracking an operation on a tree, running the pre-scan if the listener {@link ProgressListener#requiresTotals() requires} it.
+     * @param listener the listener to notify
+     * @param root the root of the tree
+     * @param visitOptions the options used to walk the tree
+     */
+    static Progress start(ProgressListener listener, Path root, Set<FileVisitOption> visitOptions) throws IOException {
+        long files = -1, bytes = -1;
+        if (listener.requiresTotals()) {
+            final long[] totals = new long[2];
+            Files.walkFileTree(root, visitOptions, Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    totals[0]++;
+                    totals[1] += attrs.size();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    // the actual operation reports it as failed file, so it must be part of the total
+                    totals[0]++;
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            files = totals[0];
+            bytes = totals[1];
+        }
+        final Progress progress = new Progress(listener, files, bytes);
+        progress.notifyListener("started", () -> listener.started(progress));
+        return progress;
+    }
+
+    void completed(Path file, long bytes, long nanos) {
+        filesDone.increment();
+        bytesDone.add(bytes);
+        latencyTotal.add(nanos);
+        latencyMax.accumulate(nanos);
+        final long now = System.nanoTime();
+        synchronized (this) {
+            if (now - windowStart >= WINDOW_NANOS) {
+                previousWindowStart = windowStart;
+                previousWindowBytes = windowBytes;
+                windowStart = now;
+                windowBytes = bytesDone.sum();
+            }
+        }
+        notifyListener(file, () -> listener.fileCompleted(file, bytes, Duration.ofNanos(nanos), this));
+    }
+
+    void failed(Path file, IOException error) {
+        errors.increment();
+        notifyListener(file, () -> listener.fileFailed(file, error, this));
+    }
+
+    void directoryFailed(Path dir, IOException error) {
+        directoryErrors.increment();
+        notifyListener(dir, () -> listener.directoryFailed(dir, error, this));
+    }
+
+    void finished() {
+        notifyListener("finished", () -> listener.finished(this));
+    }
+
+    private void notifyListener(Object event, Runnable notification) {
+        try {
+            notification.run();
+        } catch (RuntimeException e) {
+            LOG.warn("ProgressListener failed on {}, ignoring", event, e);
+        }
+    }
+
+    /**
+     * The number of files processed so far.
+     */
+    public long getFilesDone() {
+        return filesDone.sum();
+    }
+
+    /**
+     * The number of bytes processed so far.
+     */
+    public long getBytesDone() {
+        return bytesDone.sum();
+    }
+
+    /**
+     * The number of files which failed so far.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * The number of directories which failed so far (e.g. could not be deleted or their attributes not be set).
+     * These are not part of the files, and thus not included in {@link #getErrors()}.
+     */
+    public long getDirectoryErrors() {
+        return directoryErrors.sum();
+    }
+
+    /**
+     * The total number of files, {@code -1} if unknown (no pre-scan).
+     */
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+
+    /**
+     * The total number of bytes, {@code -1} if unknown (no pre-scan).
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * The number of files neither processed nor failed yet, {@code -1} if unknown (no pre-scan).
+     */
+    public long getFilesRemaining() {
+        return totalFiles < 0 ? -1 : Math.max(0, totalFiles - getFilesDone() - getErrors());
+    }
+
+    /**
+     * The number of bytes not processed yet, {@code -1} if unknown (no pre-scan).
+     */
+    public long getBytesRemaining() {
+        return totalBytes < 0 ? -1 : Math.max(0, totalBytes - getBytesDone());
+    }
+
+    /**
+     * The time since the operation started.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startTime);
+    }
+
+    /**
+     * The average throughput since the operation started.
+     */
+    public double getBytesPerSecond() {
+        return rate(getBytesDone(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * The throughput during the last one to two seconds, dropping towards 0 if no file completes anymore.
+     */
+    public double getCurrentBytesPerSecond() {
+        final long start, bytes;
+        synchronized (this) {
+            start = previousWindowStart;
+            bytes = previousWindowBytes;
+        }
+        return rate(getBytesDone() - bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * The average time it took to process a file.
+     */
+    public Duration getAverageLatency() {
+        final long files = getFilesDone();
+        return files == 0 ? Duration.ZERO : Duration.ofNanos(latencyTotal.sum() / files);
+    }
+
+    /**
+     * The longest time it took to process a file.
+     */
+    public Duration getMaxLatency() {
+        return Duration.ofNanos(latencyMax.get());
+    }
+
+    private static double rate(long bytes, long nanos) {
+        return nanos <= 0 ? 0 : bytes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Progress{" +
+                "files=" + getFilesDone() + "/" + totalFiles +
+                ", bytes=" + getBytesDone() + "/" + totalBytes +
+                ", errors=" + getErrors() +
+                ", directoryErrors=" + getDirectoryErrors() +
+                ", bytesPerSecond=" + (long) getCurrentBytesPerSecond() +
+                '}';
+    }
+}
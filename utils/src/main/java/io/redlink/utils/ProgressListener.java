@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Receives progress updates of long-running file operations, e.g.
+ * {@link PathUtils#copyRecursive(Path, Path, CopyOptions)}.
+ * All methods have empty defaults. Updates for individual files are called concurrently from the worker threads,
+ * so implementations must be thread-safe and fast. Exceptions thrown by a listener are logged and ignored.
+ *
+ * @see Progress
+ */
+public interface ProgressListener {
+
+    /**
+     * Whether the totals (files and bytes) are needed. They are then computed by a pre-scan of the tree
+     * before the operation starts, which costs an additional walk over the metadata.
+     */
+    default boolean requiresTotals() {
+        return false;
+    }
+
+    /**
+     * The operation started, after the pre-scan (if any).
+     */
+    default void started(Progress progress) {
+    }
+
+    /**
+     * A file was processed (e.g. copied or deleted).
+     * @param file the file
+     * @param bytes the size of the file
+     * @param latency the time it took to process the file
+     * @param progress the overall progress, already including this file
+     */
+    default void fileCompleted(Path file, long bytes, Duration latency, Progress progress) {
+    }
+
+    /**
+     * Processing a file failed.
+     * @param file the file
+     * @param error the cause
+     * @param progress the overall progress, already including this error
+     */
+    default void fileFailed(Path file, IOException error, Progress progress) {
+    }
+
+    /**
+     * Processing a directory failed, e.g. it could not be deleted or its attributes could not be set.
+     * Directories are not counted as files, see {@link Progress#getDirectoryErrors()}.
+     * @param dir the directory
+     * @param error the cause
+     * @param progress the overall progress, already including this error
+     */
+    default void directoryFailed(Path dir, IOException error, Progress progress) {
+    }
+
+    /**
+     * The operation completed, successfully or not.
+     */
+    default void finished(Progress progress) {
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.util.zip.Adler32;
+
+/**
+ * A rolling {@link Adler32}-Checksum over a window of bytes.
+ *
+ * <p>Once initialized with the first window, the window can be moved forward by one byte in {@code O(1)}
+ * using {@link #roll(byte, byte)}. The {@link #getValue() value} is always identical to the {@link Adler32}
+ * of the bytes currently in the window, see {@link ChecksumUtils#adler32Value(byte[])}.</p>
+ *
+ * @see BlockSignature
+ */
+public final class RollingChecksum {
+
+    private static final int MOD_ADLER = 65521;
+
+    private int a = 1;
+    private int b = 0;
+    private int length = 0;
+
+    /**
+     * Create a rolling checksum with an empty window.
+     */
+    public RollingChecksum() {
+        // empty window
+    }
+
+    /**
+     * Reset to an empty window.
+     */
+    public void reset() {
+        a = 1;
+        b = 0;
+        length = 0;
+    }
+
+    /**
+     * Append bytes to the window, growing it.
+     * @param bytes the data
+     * @param offset the offset of the first byte to append
+     * @param len the number of bytes to append
+     */
+    public void update(byte[] bytes, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            a = (a + (bytes[i] & 0xff)) % MOD_ADLER;
+            b = (b + a) % MOD_ADLER;
+        }
+        length += len;
+    }
+
+    /**
+     * Move the window forward by one byte.
+     * @param out the first byte of the current window, which is removed
+     * @param in the byte following the current window, which is appended
+     */
+    public void roll(byte out, byte in) {
+        if (length == 0) {
+            throw new IllegalStateException("Can't roll an empty window");
+        }
+        final int x = out & 0xff;
+        a = Math.floorMod(a - x + (in & 0xff), MOD_ADLER);
+        b = Math.floorMod(b - (long) length * x + a - 1, MOD_ADLER);
+    }
+
+    /**
+     * The number of bytes in the window.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * The {@link Adler32}-Checksum of the current window.
+     */
+    public long getValue() {
+        return ((long) b << 16) | a;
+    }
+}
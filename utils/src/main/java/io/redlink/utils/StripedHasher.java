@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base for incremental, non-cryptographic hash functions that consume their input in fixed-size stripes.
+ *
+ * <p>Full stripes are read directly from the input using little-endian {@link VarHandle} access,
+ * only a partial stripe at the end of an update is buffered.</p>
+ */
+abstract class StripedHasher {
+
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_LE_BUFFER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int CHAR_CHUNK = 512;
+
+    private final int stripeSize;
+    private final byte[] buffer;
+    private int buffered = 0;
+    private long length = 0;
+
+    StripedHasher(int stripeSize) {
+        this.stripeSize = stripeSize;
+        this.buffer = new byte[stripeSize];
+    }
+
+    /**
+     * Process a full stripe, starting at {@code offset}.
+     */
+    abstract void processStripe(byte[] bytes, int offset);
+
+    /**
+     * Process a full stripe, starting at the absolute {@code index}.
+     */
+    abstract void processStripe(ByteBuffer bytes, int index);
+
+    /**
+     * Complete the hash.
+     * @param tail the buffered bytes of the last, incomplete stripe
+     * @param tailLength the number of bytes in {@code tail}
+     * @param totalLength the total number of bytes hashed
+     * @return the digest in its canonical byte order
+     */
+    abstract byte[] complete(byte[] tail, int tailLength, long totalLength);
+
+    final void update(byte[] bytes, int offset, int len) {
+        length += len;
+        int off = offset;
+        int remaining = len;
+        if (buffered > 0) {
+            final int n = Math.min(remaining, stripeSize - buffered);
+            System.arraycopy(bytes, off, buffer, buffered, n);
+            buffered += n;
+            off += n;
+            remaining -= n;
+            if (buffered < stripeSize) {
+                return;
+            }
+            processStripe(buffer, 0);
+            buffered = 0;
+        }
+        while (remaining >= stripeSize) {
+            processStripe(bytes, off);
+            off += stripeSize;
+            remaining -= stripeSize;
+        }
+        System.arraycopy(bytes, off, buffer, 0, remaining);
+        buffered = remaining;
+    }
+
+    /**
+     * Hash the remaining content of the buffer, the buffer's position is moved to its limit.
+     */
+    final void update(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            update(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            bytes.position(bytes.limit());
+            return;
+        }
+        length += bytes.remaining();
+        if (buffered > 0) {
+            final int n = Math.min(bytes.remaining(), stripeSize - buffered);
+            bytes.get(buffer, buffered, n);
+            buffered += n;
+            if (buffered < stripeSize) {
+                return;
+            }
+            processStripe(buffer, 0);
+            buffered = 0;
+        }
+        int pos = bytes.position();
+        final int limit = bytes.limit();
+        while (limit - pos >= stripeSize) {
+            processStripe(bytes, pos);
+            pos += stripeSize;
+        }
+        bytes.position(pos);
+        buffered = bytes.remaining();
+        bytes.get(buffer, 0, buffered);
+    }
+
+    /**
+     * Hash the UTF-16 code units of the provided chars (little-endian), without charset-encoding.
+     */
+    final void update(CharSequence chars) {
+        final byte[] chunk = new byte[Math.min(CHAR_CHUNK, 2 * chars.length())];
+        int pos = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            final char c = chars.charAt(i);
+            chunk[pos++] = (byte) c;
+            chunk[pos++] = (byte) (c >>> 8);
+            if (pos == chunk.length) {
+                update(chunk, 0, pos);
+                pos = 0;
+            }
+        }
+        update(chunk, 0, pos);
+    }
+
+    final byte[] digest() {
+        return complete(buffer, buffered, length);
+    }
+
+    final byte[] tail() {
+        return buffer;
+    }
+
+    final int tailLength() {
+        return buffered;
+    }
+
+    final long length() {
+        return length;
+    }
+
+    static long getLong(byte[] bytes, int offset) {
+        return (long) LONG_LE.get(bytes, offset);
+    }
+
+    static long getLong(ByteBuffer bytes, int index) {
+        return (long) LONG_LE_BUFFER.get(bytes, index);
+    }
+
+    static long getUnsignedInt(byte[] bytes, int offset) {
+        return ((int) INT_LE.get(bytes, offset)) & 0xffffffffL;
+    }
+}
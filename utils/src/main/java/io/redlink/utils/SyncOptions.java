@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Options for {@link PathUtils#sync(Path, Path, SyncOptions)}.
+ * By default files are compared by size and modification time, extraneous entries in the destination are kept,
+ * and files are copied sequentially with {@link PathUtils.CopyStrategy#DEFAULT}.
+ */
+public final class SyncOptions {
+
+    private HashUtils.HashAlg checksum;
+    private boolean delete;
+    private PathUtils.CopyStrategy strategy = PathUtils.CopyStrategy.DEFAULT;
+    private int parallelism = 1;
+
+    private SyncOptions() {}
+
+    /**
+     * Compare files of equal size by their digest instead of their modification time.
+     * @param checksum the hash algorithm, {@code null} to compare size and modification time only
+     */
+    public SyncOptions withChecksum(HashUtils.HashAlg checksum) {
+        this.checksum = checksum;
+        return this;
+    }
+
+    /**
+     * Delete entries in the destination which do not exist in the source.
+     */
+    public SyncOptions withDelete(boolean delete) {
+        this.delete = delete;
+        return this;
+    }
+
+    /**
+     * The mechanism used to copy changed files.
+     */
+    public SyncOptions withStrategy(PathUtils.CopyStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must not be null");
+        }
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * The max. number of files compared and copied in parallel.
+     */
+    public SyncOptions withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public HashUtils.HashAlg getChecksum() {
+        return checksum;
+    }
+
+    public boolean isDelete() {
+        return delete;
+    }
+
+    public PathUtils.CopyStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public static SyncOptions create() {
+        return new SyncOptions();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.SortedSet;
+
+/**
+ * The changes applied by {@link PathUtils#sync(Path, Path, SyncOptions)}.
+ * All paths are relative to the source/destination root.
+ */
+public final class SyncReport {
+
+    private final SortedSet<Path> added;
+    private final SortedSet<Path> updated;
+    private final SortedSet<Path> deleted;
+    private final long unchanged;
+    private final long copiedBytes;
+
+    SyncReport(SortedSet<Path> added, SortedSet<Path> updated, SortedSet<Path> deleted, long unchanged, long copiedBytes) {
+        this.added = Collections.unmodifiableSortedSet(added);
+        this.updated = Collections.unmodifiableSortedSet(updated);
+        this.deleted = Collections.unmodifiableSortedSet(deleted);
+        this.unchanged = unchanged;
+        this.copiedBytes = copiedBytes;
+    }
+
+    /**
+     * The files and directories which did not exist in the destination.
+     */
+    public SortedSet<Path> getAdded() {
+        return added;
+    }
+
+    /**
+     * The files which were replaced because they differed from the source.
+     */
+    public SortedSet<Path> getUpdated() {
+        return updated;
+    }
+
+    /**
+     * The extraneous entries removed from the destination (a deleted directory is reported without its content).
+     */
+    public SortedSet<Path> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * The number of files which were already up to date.
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * The sum of the sizes of all added or updated files.
+     */
+    public long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * Whether the destination was modified.
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !updated.isEmpty() || !deleted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "SyncReport{" +
+                "added=" + added.size() +
+                ", updated=" + updated.size() +
+                ", deleted=" + deleted.size() +
+                ", unchanged=" + unchanged +
+                ", copiedBytes=" + copiedBytes +
+                '}';
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A Merkle tree hash of a file, calculated in parallel.
+ *
+ * <p>The format is stable and follows the Merkle Tree Hash of
+ * <a href="https://www.rfc-editor.org/rfc/rfc6962#section-2.1">RFC 6962, Section 2.1</a>,
+ * with {@code H} being the selected {@link HashUtils.HashAlg}:</p>
+ * <ol>
+ *     <li>the file is split into chunks of {@link #getChunkSize() chunkSize} bytes, the last chunk may be
+ *     shorter. An empty file consists of exactly one empty chunk.</li>
+ *     <li>every chunk is hashed into a leaf: {@code leaf = H(0x00 || chunk)}</li>
+ *     <li>pairs of adjacent nodes (left to right) are combined into their parent: {@code node = H(0x01 || left || right)}.
+ *     If a level has an odd number of nodes, the last node is promoted unchanged to the next level.</li>
+ *     <li>the single node of the top-level is the {@link #getRoot() root}.</li>
+ * </ol>
+ * <p>The {@link #getLeaves() leaves} are kept, so single chunks can be {@link #verifyChunk(Path, int) re-verified}
+ * without re-reading the complete file.</p>
+ *
+ * @see HashUtils#treeHash(HashUtils.HashAlg, Path)
+ */
+public final class TreeHash {
+
+    /**
+     * Default size of a chunk: 1 MiB.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private final HashUtils.HashAlg algorithm;
+    private final int chunkSize;
+    private final long length;
+    private final byte[][] leaves;
+    private final byte[] root;
+
+    private TreeHash(HashUtils.HashAlg algorithm, int chunkSize, long length, byte[][] leaves) {
+        this.algorithm = algorithm;
+        this.chunkSize = chunkSize;
+        this.length = length;
+        this.leaves = leaves;
+        this.root = calcRoot(algorithm, leaves);
+    }
+
+    /**
+     * The algorithm used to hash leaves and nodes.
+     */
+    public HashUtils.HashAlg getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The size of the chunks hashed into the leaves.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * The number of bytes hashed.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * The root hash of the tree.
+     */
+    public String getRoot() {
+        return HexUtils.encode(root);
+    }
+
+    /**
+     * The number of leaves (chunks) of the tree.
+     */
+    public int getLeafCount() {
+        return leaves.length;
+    }
+
+    /**
+     * The hash of a single leaf.
+     * @param index the index of the chunk
+     */
+    public String getLeaf(int index) {
+        return HexUtils.encode(leaves[index]);
+    }
+
+    /**
+     * The hashes of all leaves, in file-order.
+     */
+    public List<String> getLeaves() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getLeaf(index);
+            }
+
+            @Override
+            public int size() {
+                return leaves.length;
+            }
+        };
+    }
+
+    /**
+     * Re-calculate the hash of a single chunk and compare it with the stored leaf.
+     * @param file the file to verify
+     * @param index the index of the chunk to verify
+     * @return {@code true} if the chunk still has the same hash.
+     */
+    public boolean verifyChunk(Path file, int index) throws IOException {
+        Objects.checkIndex(index, leaves.length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return MessageDigest.isEqual(leaves[index], hashChunk(channel, algorithm, chunkSize, length, index));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final TreeHash treeHash = (TreeHash) o;
+        return chunkSize == treeHash.chunkSize
+                && length == treeHash.length
+                && algorithm == treeHash.algorithm
+                && MessageDigest.isEqual(root, treeHash.root);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(algorithm, chunkSize, length, Arrays.hashCode(root));
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + "-tree(" + chunkSize + "):" + getRoot();
+    }
+
+    /**
+     * Calculate the {@link TreeHash} of a file.
+     * @param algorithm the algorithm used to hash leaves and nodes
+     * @param file the file to hash
+     * @param chunkSize the size of the chunks
+     * @param pool the pool used to hash the chunks in parallel
+     */
+    static TreeHash calculate(HashUtils.HashAlg algorithm, Path file, int chunkSize, ForkJoinPool pool) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long length = channel.size();
+            final long chunkCount = Math.max(1, (length + chunkSize - 1) / chunkSize);
+            if (chunkCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("chunkSize " + chunkSize + " too small for a file of " + length + " bytes");
+            }
+            final byte[][] leaves = new byte[(int) chunkCount][];
+            try {
+                pool.invoke(new LeafHasher(channel, algorithm, chunkSize, length, leaves, 0, leaves.length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return new TreeHash(algorithm, chunkSize, length, leaves);
+        }
+    }
+
+    private static byte[] hashChunk(FileChannel channel, HashUtils.HashAlg algorithm, int chunkSize, long length, int index) throws IOException {
+        final MessageDigest digest = algorithm.createDigest();
+        digest.update(LEAF_PREFIX);
+        final long position = (long) index * chunkSize;
+        FileChannels.read(channel, position, Math.min(chunkSize, length - position), digest::update);
+        return digest.digest();
+    }
+
+    private static byte[] calcRoot(HashUtils.HashAlg algorithm, byte[][] leaves) {
+        final MessageDigest digest = algorithm.createDigest();
+        byte[][] level = leaves;
+        while (level.length > 1) {
+            final byte[][] parents = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parents.length; i++) {
+                final int left = 2 * i;
+                if (left + 1 < level.length) {
+                    digest.update(NODE_PREFIX);
+                    digest.update(level[left]);
+                    digest.update(level[left + 1]);
+                    parents[i] = digest.digest();
+                } else {
+                    parents[i] = level[left];
+                }
+            }
+            level = parents;
+        }
+        return level[0];
+    }
+
+    private static class LeafHasher extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final HashUtils.HashAlg algorithm;
+        private final int chunkSize;
+        private final long length;
+        private final byte[][] leaves;
+        private final int from;
+        private final int to;
+
+        LeafHasher(FileChannel channel, HashUtils.HashAlg algorithm, int chunkSize, long length, byte[][] leaves, int from, int to) {
+            this.channel = channel;
+            this.algorithm = algorithm;
+            this.chunkSize = chunkSize;
+            this.length = length;
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new LeafHasher(channel, algorithm, chunkSize, length, leaves, from, mid),
+                        new LeafHasher(channel, algorithm, chunkSize, length, leaves, mid, to));
+            } else {
+                try {
+                    leaves[from] = hashChunk(channel, algorithm, chunkSize, length, from);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mirrors a source tree into a destination, copying only files which are missing or modified.
+ * Directories are created and extraneous entries deleted while walking the tree, files are compared and copied
+ * on an {@link Executor}. Each directory is tracked by a future completing once all its children are synced,
+ * its modification time is set then.
+ *
+ * @see PathUtils#sync(Path, Path, SyncOptions)
+ */
+final class TreeSync implements FileVisitor<Path> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TreeSync.class);
+
+    private final Path source;
+    private final Path target;
+    private final SyncOptions options;
+    private final Executor executor;
+    private final Semaphore pendingFiles = new Semaphore(PathUtils.MAX_PENDING_OPERATIONS);
+    /**
+     * The futures of the children of the directories currently visited, the innermost directory on top.
+     */
+    private final Deque<List<CompletableFuture<Void>>> children = new ArrayDeque<>();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    private final ConcurrentSkipListSet<Path> added = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Path> updated = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Path> deleted = new ConcurrentSkipListSet<>();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder copiedBytes = new LongAdder();
+
+    private TreeSync(Path source, Path target, SyncOptions options, Executor executor) {
+        this.source = source;
+        this.target = target;
+        this.options = options;
+        this.executor = executor;
+        children.push(new ArrayList<>());
+    }
+
+    static SyncReport sync(Path source, Path target, SyncOptions options, Executor executor) throws IOException {
+        final TreeSync sync = new TreeSync(source, target, options, executor);
+        try {
+            Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, sync);
+        } finally {
+            sync.await();
+        }
+        final IOException e = sync.failure.get();
+        if (e != null) {
+            throw e;
+        }
+        return new SyncReport(sync.added, sync.updated, sync.deleted, sync.unchanged.sum(), sync.copiedBytes.sum());
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (failure.get() != null) {
+            return FileVisitResult.TERMINATE;
+        }
+        final Path relative = source.relativize(dir);
+        final Path destDir = target.resolve(relative.toString());
+        final boolean isRoot = relative.toString().isEmpty();
+        // the destination root may be a link to the actual directory, below links are replaced by directories
+        if (!(isRoot ? Files.isDirectory(destDir) : Files.isDirectory(destDir, LinkOption.NOFOLLOW_LINKS))) {
+            if (Files.exists(destDir, LinkOption.NOFOLLOW_LINKS)) {
+                PathUtils.deleteRecursive(destDir);
+                updated.add(relative);
+            } else if (!isRoot) {
+                added.add(relative);
+            }
+            Files.createDirectories(destDir);
+        }
+        children.push(new ArrayList<>());
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (failure.get() != null) {
+            return FileVisitResult.TERMINATE;
+        }
+        final Path relative = source.relativize(file);
+        final Path dest = target.resolve(relative.toString());
+        try {
+            pendingFiles.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while syncing " + file);
+        }
+        try {
+            children.element().add(CompletableFuture.runAsync(() -> {
+                try {
+                    syncFile(file, attrs, relative, dest);
+                } catch (IOException e) {
+                    throw fail(e);
+                } finally {
+                    pendingFiles.release();
+                }
+            }, executor));
+        } catch (RuntimeException e) {
+            pendingFiles.release();
+            throw e;
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        CompletableFuture<Void> completed = CompletableFuture.allOf(children.pop().toArray(new CompletableFuture<?>[0]));
+        if (exc != null) {
+            // the listing of the directory is incomplete: neither delete extraneous entries nor set the mtime
+            fail(exc);
+        } else {
+            final Path destDir = target.resolve(source.relativize(dir).toString());
+            if (options.isDelete()) {
+                deleteExtraneous(dir, destDir);
+            }
+            final FileTime time = Files.getLastModifiedTime(dir);
+            completed = completed.thenRun(() -> {
+                try {
+                    Files.setLastModifiedTime(destDir, time);
+                } catch (IOException e) {
+                    throw fail(e);
+                }
+            });
+        }
+        children.element().add(completed);
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+        if (source.equals(file)) {
+            // e.g. NoSuchFileException, nothing was synced
+            throw exc;
+        }
+        if (exc instanceof FileSystemLoopException) {
+            LOG.error("cycle detected: {}", file);
+        } else {
+            LOG.error("Unable to sync: {}", file, exc);
+        }
+        fail(exc);
+        return FileVisitResult.TERMINATE;
+    }
+
+    private void syncFile(Path file, BasicFileAttributes attrs, Path relative, Path dest) throws IOException {
+        BasicFileAttributes destAttrs;
+        try {
+            destAttrs = Files.readAttributes(dest, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            destAttrs = null;
+        }
+
+        if (destAttrs == null) {
+            added.add(relative);
+        } else if (!destAttrs.isRegularFile()) {
+            PathUtils.deleteRecursive(dest);
+            updated.add(relative);
+        } else if (isModified(file, attrs, dest, destAttrs)) {
+            updated.add(relative);
+        } else {
+            unchanged.increment();
+            return;
+        }
+        PathUtils.copy(file, dest, true, options.getStrategy());
+        copiedBytes.add(attrs.size());
+    }
+
+    /**
+     * Compare by size, then by digest or (with millisecond precision, as not all file stores are more precise)
+     * by modification time.
+     */
+    private boolean isModified(Path file, BasicFileAttributes attrs, Path dest, BasicFileAttributes destAttrs)
+            throws IOException {
+        if (attrs.size() != destAttrs.size()) {
+            return true;
+        }
+        if (options.getChecksum() != null) {
+            return !MessageDigest.isEqual(HashUtils.digest(options.getChecksum(), file),
+                    HashUtils.digest(options.getChecksum(), dest));
+        }
+        return attrs.lastModifiedTime().toMillis() != destAttrs.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Delete all entries of the destination directory without a counterpart in the source directory.
+     */
+    private void deleteExtraneous(Path dir, Path destDir) throws IOException {
+        final List<Path> extraneous = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(destDir)) {
+            for (Path entry : entries) {
+                if (!Files.exists(dir.resolve(entry.getFileName().toString()), LinkOption.NOFOLLOW_LINKS)) {
+                    extraneous.add(entry);
+                }
+            }
+        }
+        for (Path entry : extraneous) {
+            PathUtils.deleteRecursive(entry);
+            deleted.add(target.relativize(entry));
+        }
+    }
+
+    private UncheckedIOException fail(IOException e) {
+        if (!failure.compareAndSet(null, e)) {
+            failure.get().addSuppressed(e);
+        }
+        return new UncheckedIOException(e);
+    }
+
+    /**
+     * Wait for all submitted files, including those of directories left unfinished by an aborted walk.
+     */
+    private void await() {
+        final CompletableFuture<?>[] pending = children.stream()
+                .flatMap(List::stream)
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(pending).join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof UncheckedIOException)) {
+                throw e;
+            }
+            // recorded in failure
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+/**
+ * Streaming UTF-8 encoding of {@link CharSequence}s into a small, re-used buffer.
+ *
+ * <p>The produced bytes are identical to {@code String.getBytes(StandardCharsets.UTF_8)}, including the
+ * replacement of malformed surrogates with {@code '?'}, but the complete encoded representation is never
+ * allocated.</p>
+ */
+final class Utf8Encoder {
+
+    /**
+     * Shorter Strings are encoded with {@link String#getBytes(java.nio.charset.Charset)}, which is faster
+     * for small inputs.
+     */
+    static final int STREAMING_THRESHOLD = 8 * 1024;
+
+    static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    /**
+     * Receives the encoded bytes, chunk by chunk.
+     */
+    @FunctionalInterface
+    interface ByteSink {
+        void update(byte[] bytes, int offset, int length);
+    }
+
+    private Utf8Encoder() {}
+
+    /**
+     * Encode a {@link CharSequence} as UTF-8.
+     * @param chars the characters to encode
+     * @param sink receives the encoded bytes. The buffer is re-used, the sink must not keep a reference to it.
+     */
+    static void encode(CharSequence chars, ByteSink sink) {
+        final byte[] buffer = BUFFER.get();
+        // the longest encoding of a single char (or surrogate pair) is 4 bytes
+        final int limit = buffer.length - 4;
+        final int length = chars.length();
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            if (pos > limit) {
+                sink.update(buffer, 0, pos);
+                pos = 0;
+            }
+            final char c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte) (0xc0 | (c >> 6));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                final char low;
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(low = chars.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, low);
+                    buffer[pos++] = (byte) (0xf0 | (cp >> 18));
+                    buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    buffer[pos++] = (byte) (0x80 | (cp & 0x3f));
+                    i++;
+                } else {
+                    // malformed: same replacement as String.getBytes(UTF_8)
+                    buffer[pos++] = '?';
+                }
+            } else {
+                buffer[pos++] = (byte) (0xe0 | (c >> 12));
+                buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        if (pos > 0) {
+            sink.update(buffer, 0, pos);
+        }
+    }
+}
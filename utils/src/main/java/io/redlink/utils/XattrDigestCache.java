@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DigestCache} storing the digests in user-defined extended attributes ({@code user.*} on Linux)
+ * of the files themselves.
+ *
+ * <p>Every digest is stored in a separate attribute {@code <prefix><algorithm>} together with a stamp of the file
+ * (size and last-modified-time). A stored digest is only returned while the stamp still matches.
+ * As the digest is attached to the file, it survives restarts and moves within the same file-system.</p>
+ * <p><strong>This is a cache, not an integrity check:</strong> any process that can write the file can change its
+ * content and restore the last-modified-time (e.g. {@code touch -d}), or rewrite the attribute itself. The cached
+ * digest is then returned for content it does not match. A stamp based on the change-time ({@code ctime}) is not an
+ * option, as writing the attribute changes the {@code ctime} of the file. Do not use this cache where the digest
+ * must detect tampering.</p>
+ * <p>If the file-system does not support user-defined attributes (or the file is not writable),
+ * this cache silently does nothing.</p>
+ *
+ * @see UserDefinedFileAttributeView
+ */
+public final class XattrDigestCache implements DigestCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(XattrDigestCache.class);
+
+    /**
+     * Default prefix of the attribute-names, on Linux the attributes will be named {@code user.redlink.digest.*}
+     */
+    public static final String DEFAULT_PREFIX = "redlink.digest.";
+
+    private static final int STAMP_LENGTH = 2 * Long.BYTES;
+
+    private final String prefix;
+
+    public XattrDigestCache() {
+        this(DEFAULT_PREFIX);
+    }
+
+    /**
+     * @param prefix the prefix of the attribute-names
+     */
+    public XattrDigestCache(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Check if the file-system of a file supports user-defined attributes.
+     * @param file the file to check
+     */
+    public static boolean isSupported(Path file) throws IOException {
+        return Files.getFileStore(file).supportsFileAttributeView(UserDefinedFileAttributeView.class);
+    }
+
+    @Override
+    public byte[] get(Path file, BasicFileAttributes attributes, String algorithm) {
+        final UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+        if (view == null) {
+            return null;
+        }
+        final String name = prefix + algorithm;
+        try {
+            if (!view.list().contains(name)) {
+                return null;
+            }
+            final ByteBuffer value = ByteBuffer.allocate(view.size(name));
+            view.read(name, value);
+            value.flip();
+            if (value.remaining() <= STAMP_LENGTH
+                    || value.getLong() != attributes.size()
+                    || value.getLong() != stamp(attributes)) {
+                return null;
+            }
+            final byte[] digest = new byte[value.remaining()];
+            value.get(digest);
+            return digest;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.debug("Unable to read attribute {} of {}: {}", name, file, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(Path file, BasicFileAttributes attributes, String algorithm, byte[] digest) {
+        final UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        final String name = prefix + algorithm;
+        final ByteBuffer value = ByteBuffer.allocate(STAMP_LENGTH + digest.length)
+                .putLong(attributes.size())
+                .putLong(stamp(attributes))
+                .put(digest)
+                .flip();
+        try {
+            view.write(name, value);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.debug("Unable to write attribute {} of {}: {}", name, file, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove all digests stored by this cache from a file.
+     * @param file the file
+     */
+    public void clear(Path file) throws IOException {
+        final UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        for (String name : view.list()) {
+            if (name.startsWith(prefix)) {
+                view.delete(name);
+            }
+        }
+    }
+
+    private static long stamp(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental <a href="https://github.com/Cyan4973/xxHash">xxHash64</a>.
+ */
+final class XxHash64 extends StripedHasher {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    XxHash64(long seed) {
+        super(32);
+        this.seed = seed;
+        this.v1 = seed + PRIME1 + PRIME2;
+        this.v2 = seed + PRIME2;
+        this.v3 = seed;
+        this.v4 = seed - PRIME1;
+    }
+
+    @Override
+    void processStripe(byte[] bytes, int offset) {
+        v1 = round(v1, getLong(bytes, offset));
+        v2 = round(v2, getLong(bytes, offset + 8));
+        v3 = round(v3, getLong(bytes, offset + 16));
+        v4 = round(v4, getLong(bytes, offset + 24));
+    }
+
+    @Override
+    void processStripe(ByteBuffer bytes, int index) {
+        v1 = round(v1, getLong(bytes, index));
+        v2 = round(v2, getLong(bytes, index + 8));
+        v3 = round(v3, getLong(bytes, index + 16));
+        v4 = round(v4, getLong(bytes, index + 24));
+    }
+
+    @Override
+    byte[] complete(byte[] tail, int tailLength, long totalLength) {
+        final long hash = completeValue(tail, tailLength, totalLength);
+        final byte[] digest = new byte[8];
+        // canonical representation is big-endian
+        for (int i = 0; i < 8; i++) {
+            digest[i] = (byte) (hash >>> (56 - 8 * i));
+        }
+        return digest;
+    }
+
+    /**
+     * Complete the hash and return it as numeric value.
+     */
+    long value() {
+        return completeValue(tail(), tailLength(), length());
+    }
+
+    private long completeValue(byte[] tail, int tailLength, long totalLength) {
+        long h;
+        if (totalLength >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += totalLength;
+
+        int pos = 0;
+        while (pos + 8 <= tailLength) {
+            h ^= round(0, getLong(tail, pos));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+            pos += 8;
+        }
+        if (pos + 4 <= tailLength) {
+            h ^= getUnsignedInt(tail, pos) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            pos += 4;
+        }
+        while (pos < tailLength) {
+            h ^= (tail[pos] & 0xffL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+            pos++;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.redlink.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class Blake3Test {
+
+    /**
+     * Key and context of the official test vectors (test_vectors.json of the reference implementation).
+     */
+    private static final byte[] KEY = "whats the Elvish word for friend".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String CONTEXT = "BLAKE3 2019-12-27 16:29:52 test vectors context";
+
+    /**
+     * input: {@code i % 251}, columns: length, hash, keyed_hash, derive_key
+     */
+    private static final String[][] VECTORS = {
+            {"0", "af1349b9f5f9a1a6a0404dea36dcc9499bcb25c9adc112b7cc9a93cae41f3262",
+                    "92b2b75604ed3c761f9d6f62392c8a9227ad0ea3f09573e783f1498a4ed60d26",
+                    "2cc39783c223154fea8dfb7c1b1660f2ac2dcbd1c1de8277b0b0dd39b7e50d7d"},
+            {"1", "2d3adedff11b61f14c886e35afa036736dcd87a74d27b5c1510225d0f592e213",
+                    "6d7878dfff2f485635d39013278ae14f1454b8c0a3a2d34bc1ab38228a80c95b",
+                    "b3e2e340a117a499c6cf2398a19ee0d29cca2bb7404c73063382693bf66cb06c"},
+            {"63", "e9bc37a594daad83be9470df7f7b3798297c3d834ce80ba85d6e207627b7db7b",
+                    "bb1eb5d4afa793c1ebdd9fb08def6c36d10096986ae0cfe148cd101170ce37ae",
+                    "b6451e30b953c206e34644c6803724e9d2725e0893039cfc49584f991f451af3"},
+            {"64", "4eed7141ea4a5cd4b788606bd23f46e212af9cacebacdc7d1f4c6dc7f2511b98",
+                    "ba8ced36f327700d213f120b1a207a3b8c04330528586f414d09f2f7d9ccb7e6",
+                    "a5c4a7053fa86b64746d4bb688d06ad1f02a18fce9afd3e818fefaa7126bf73e"},
+            {"65", "de1e5fa0be70df6d2be8fffd0e99ceaa8eb6e8c93a63f2d8d1c30ecb6b263dee",
+                    "c0a4edefa2d2accb9277c371ac12fcdbb52988a86edc54f0716e1591b4326e72",
+                    "51fd05c3c1cfbc8ed67d139ad76f5cf8236cd2acd26627a30c104dfd9d3ff8a8"},
+            {"1023", "10108970eeda3eb932baac1428c7a2163b0e924c9a9e25b35bba72b28f70bd11",
+                    "c951ecdf03288d0fcc96ee3413563d8a6d3589547f2c2fb36d9786470f1b9d6e",
+                    "74a16c1c3d44368a86e1ca6df64be6a2f64cce8f09220787450722d85725dea5"},
+            {"1024", "42214739f095a406f3fc83deb889744ac00df831c10daa55189b5d121c855af7",
+                    "75c46f6f3d9eb4f55ecaaee480db732e6c2105546f1e675003687c31719c7ba4",
+                    "7356cd7720d5b66b6d0697eb3177d9f8d73a4a5c5e968896eb6a689684302706"},
+            {"1025", "d00278ae47eb27b34faecf67b4fe263f82d5412916c1ffd97c8cb7fb814b8444",
+                    "357dc55de0c7e382c900fd6e320acc04146be01db6a8ce7210b7189bd664ea69",
+                    "effaa245f065fbf82ac186839a249707c3bddf6d3fdda22d1b95a3c970379bcb"},
+            {"2048", "e776b6028c7cd22a4d0ba182a8bf62205d2ef576467e838ed6f2529b85fba24a",
+                    "879cf1fa2ea0e79126cb1063617a05b6ad9d0b696d0d757cf053439f60a99dd1",
+                    "7b2945cb4fef70885cc5d78a87bf6f6207dd901ff239201351ffac04e1088a23"},
+            {"2049", "5f4d72f40d7a5f82b15ca2b2e44b1de3c2ef86c426c95c1af0b6879522563030",
+                    "9f29700902f7c86e514ddc4df1e3049f258b2472b6dd5267f61bf13983b78dd5",
+                    "2ea477c5515cc3dd606512ee72bb3e0e758cfae7232826f35fb98ca1bcbdf273"},
+            {"3072", "b98cb0ff3623be03326b373de6b9095218513e64f1ee2edd2525c7ad1e5cffd2",
+                    "044a0e7b172a312dc02a4c9a818c036ffa2776368d7f528268d2e6b5df191770",
+                    "050df97f8c2ead654d9bb3ab8c9178edcd902a32f8495949feadcc1e0480c46b"},
+            {"3073", "7124b49501012f81cc7f11ca069ec9226cecb8a2c850cfe644e327d22d3e1cd3",
+                    "68dede9bef00ba89e43f31a6825f4cf433389fedae75c04ee9f0cf16a427c95a",
+                    "72613c9ec9ff7e40f8f5c173784c532ad852e827dba2bf85b2ab4b76f7079081"},
+            {"4096", "015094013f57a5277b59d8475c0501042c0b642e531b0a1c8f58d2163229e969",
+                    "befc660aea2f1718884cd8deb9902811d332f4fc4a38cf7c7300d597a081bfc0",
+                    "1e0d7f3db8c414c97c6307cbda6cd27ac3b030949da8e23be1a1a924ad2f25b9"},
+            {"4097", "9b4052b38f1c5fc8b1f9ff7ac7b27cd242487b3d890d15c96a1c25b8aa0fb995",
+                    "00df940cd36bb9fa7cbbc3556744e0dbc8191401afe70520ba292ee3ca80abbc",
+                    "aca51029626b55fda7117b42a7c211f8c6e9ba4fe5b7a8ca922f34299500ead8"},
+            {"8192", "aae792484c8efe4f19e2ca7d371d8c467ffb10748d8a5a1ae579948f718a2a63",
+                    "dc9637c8845a770b4cbf76b8daec0eebf7dc2eac11498517f08d44c8fc00d58a",
+                    "ad01d7ae4ad059b0d33baa3c01319dcf8088094d0359e5fd45d6aeaa8b2d0c3d"},
+            {"8193", "bab6c09cb8ce8cf459261398d2e7aef35700bf488116ceb94a36d0f5f1b7bc3b",
+                    "954a2a75420c8d6547e3ba5b98d963e6fa6491addc8c023189cc519821b4a1f5",
+                    "af1e0346e389b17c23200270a64aa4e1ead98c61695d917de7d5b00491c9b0f1"},
+            {"31744", "62b6960e1a44bcc1eb1a611a8d6235b6b4b78f32e7abc4fb4c6cdcce94895c47",
+                    "efa53b389ab67c593dba624d898d0f7353ab99e4ac9d42302ee64cbf9939a419",
+                    "39772aef80e0ebe60596361e45b061e8f417429d529171b6764468c22928e28e"},
+            {"102400", "bc3e3d41a1146b069abffad3c0d44860cf664390afce4d9661f7902e7943e085",
+                    "1c35d1a5811083fd7119f5d5d1ba027b4d01c0c6c49fb6ff2cf75393ea5db4a7",
+                    "4652cff7a3f385a6103b5c260fc1593e13c778dbe608efb092fe7ee69df6e9c6"}
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static byte[] input(int length) {
+        final byte[] input = new byte[length];
+        for (int i = 0; i < length; i++) {
+            input[i] = (byte) (i % 251);
+        }
+        return input;
+    }
+
+    @Test
+    public void testVectors() {
+        for (String[] vector : VECTORS) {
+            final byte[] input = input(Integer.parseInt(vector[0]));
+            assertEquals("BLAKE3 mismatch (" + vector[0] + ")", vector[1],
+                    HexUtils.encode(Blake3.newInstance().update(input).digest()));
+            assertEquals("BLAKE3 mismatch (" + vector[0] + ")", vector[1], HashUtils.blake3(input));
+            assertEquals("keyed BLAKE3 mismatch (" + vector[0] + ")", vector[2],
+                    HexUtils.encode(Blake3.newKeyedInstance(KEY).update(input).digest()));
+            assertEquals("derived key mismatch (" + vector[0] + ")", vector[3],
+                    HexUtils.encode(Blake3.newKeyDerivationInstance(CONTEXT).update(input).digest()));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        final Random rnd = new Random(42);
+        final byte[] input = input(10_000);
+        final byte[] expected = Blake3.newInstance().update(input).digest();
+        for (int i = 0; i < 20; i++) {
+            final Blake3 hasher = Blake3.newInstance();
+            int offset = 0;
+            while (offset < input.length) {
+                final int length = Math.min(input.length - offset, rnd.nextInt(3000));
+                if (length == 1) {
+                    hasher.update(input[offset]);
+                } else if (rnd.nextBoolean()) {
+                    hasher.update(input, offset, length);
+                } else {
+                    final ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+                    buffer.put(input, offset, length).flip();
+                    hasher.update(buffer);
+                    assertEquals("buffer not consumed", 0, buffer.remaining());
+                }
+                offset += length;
+            }
+            assertArrayEquals("BLAKE3 mismatch", expected, hasher.digest());
+        }
+    }
+
+    @Test
+    public void testExtendedOutput() {
+        final Blake3 hasher = Blake3.newInstance().update("abc".getBytes(StandardCharsets.US_ASCII));
+        final byte[] extended = hasher.digest(131);
+        assertEquals("length", 131, extended.length);
+        assertArrayEquals("prefix mismatch", hasher.digest(), Arrays.copyOf(extended, Blake3.DIGEST_LENGTH));
+        assertEquals("BLAKE3 mismatch", "6437b3ac38465133ffb63b75273a8db548c558465d79db03fd359c6cd5bd9d85",
+                HexUtils.encode(hasher.digest()));
+        assertEquals("XOF mismatch", "1fb250ae7393f5d02813b65d521a0d492d9ba09cf7ce7f4cffd900f23374bf0b",
+                HexUtils.encode(Arrays.copyOfRange(extended, 32, 64)));
+
+        final byte[] out = new byte[140];
+        hasher.digest(out, 9, 131);
+        assertArrayEquals("XOF mismatch", extended, Arrays.copyOfRange(out, 9, 140));
+    }
+
+    @Test
+    public void testResetAndCopy() throws Exception {
+        final byte[] input = input(5000);
+        final Blake3 hasher = Blake3.newKeyedInstance(KEY).update(input, 0, 2000);
+        final Blake3 copy = hasher.copy();
+        hasher.update(input, 2000, 3000);
+        copy.update(input, 2000, 3000);
+        assertArrayEquals("copy mismatch", hasher.digest(), copy.digest());
+
+        hasher.reset();
+        assertEquals("keyed BLAKE3 mismatch", VECTORS[0][2], HexUtils.encode(hasher.digest()));
+    }
+
+    @Test
+    public void testMessageDigest() throws Exception {
+        final byte[] input = input(3073);
+        final MessageDigest digest = new Blake3Digest();
+        assertEquals("length", Blake3.DIGEST_LENGTH, digest.getDigestLength());
+        digest.update(input, 0, 1500);
+        final MessageDigest clone = (MessageDigest) digest.clone();
+        digest.update(input, 1500, input.length - 1500);
+        clone.update(ByteBuffer.wrap(input, 1500, input.length - 1500));
+        assertEquals("BLAKE3 mismatch", expected(3073), HexUtils.encode(digest.digest()));
+        assertEquals("BLAKE3 mismatch", expected(3073), HexUtils.encode(clone.digest()));
+        // digest() resets
+        assertEquals("BLAKE3 mismatch", VECTORS[0][1], HexUtils.encode(digest.digest()));
+    }
+
+    @Test
+    public void testHashUtils() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        try (InputStream stream = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            Files.write(file, stream.readAllBytes());
+        }
+        final byte[] data = Files.readAllBytes(file);
+        final String expected = HexUtils.encode(Blake3.newInstance().update(data).digest());
+        assertEquals("BLAKE3 mismatch", expected, HashUtils.blake3(file));
+        assertEquals("BLAKE3 mismatch", expected, HashUtils.blake3(file.toFile()));
+        assertEquals("BLAKE3 mismatch", expected, HashUtils.blake3(new String(data, StandardCharsets.UTF_8)));
+        assertEquals("BLAKE3 mismatch", expected, HashUtils.blake3(new ByteArrayInputStream(data)));
+        assertEquals("BLAKE3 mismatch", expected, HashUtils.hash(HashUtils.HashAlg.BLAKE3, ByteBuffer.wrap(data)));
+    }
+
+    @Test
+    public void testParallelFile() throws IOException {
+        final ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (String[] vector : new String[][]{
+                    {"262145", "531c319935cf78f34869faebd865e5748266b1799039103bfb851a680d9ed30c",
+                            "d90e1ca9e8c450f1937898a2a38d4fe2e6977cfa280db88213603eb9e61af23d"},
+                    {"1053287", "1d57ea1d8a9fb52d4cff78b3c34d09e703c76e72e04920c86e20f9e7f4399740",
+                            "579e7662980250d4cbc8202c30cd820e839b31540c79de65877b1cd73928fda6"}}) {
+                final Path file = temporaryFolder.newFile().toPath();
+                Files.write(file, input(Integer.parseInt(vector[0])));
+                assertEquals("BLAKE3 mismatch", vector[1], HexUtils.encode(Blake3.digest(file, ForkJoinPool.commonPool())));
+                assertEquals("BLAKE3 mismatch", vector[1], HexUtils.encode(Blake3.digest(file, single)));
+                assertEquals("BLAKE3 mismatch", vector[1], HashUtils.blake3(file));
+                assertEquals("keyed BLAKE3 mismatch", vector[2],
+                        HexUtils.encode(Blake3.keyedDigest(KEY, file, ForkJoinPool.commonPool())));
+            }
+
+            for (String[] vector : VECTORS) {
+                final Path file = temporaryFolder.newFile().toPath();
+                Files.write(file, input(Integer.parseInt(vector[0])));
+                assertEquals("BLAKE3 mismatch (" + vector[0] + ")", vector[1],
+                        HexUtils.encode(Blake3.digest(file, ForkJoinPool.commonPool())));
+            }
+
+            final byte[] data = new byte[5 * 1024 * 1024 + 3];
+            new Random(42).nextBytes(data);
+            final Path file = temporaryFolder.newFile().toPath();
+            Files.write(file, data);
+            final Blake3 hasher = Blake3.newInstance().update(data);
+            assertArrayEquals("BLAKE3 mismatch", hasher.digest(), Blake3.digest(file, ForkJoinPool.commonPool()));
+            assertArrayEquals("BLAKE3 mismatch", hasher.digest(), Blake3.digest(file, single));
+            assertArrayEquals("XOF mismatch", hasher.digest(100), Blake3.digest(file, 100, ForkJoinPool.commonPool()));
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Blake3.newKeyedInstance(new byte[16]));
+        assertThrows(IllegalArgumentException.class, () -> HashUtils.hmac(HashUtils.HashAlg.BLAKE3, KEY));
+    }
+
+    private static String expected(int length) {
+        for (String[] vector : VECTORS) {
+            if (Integer.parseInt(vector[0]) == length) {
+                return vector[1];
+            }
+        }
+        throw new IllegalArgumentException("no vector for " + length);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class BlockSignatureTest {
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSignature() throws IOException {
+        final byte[] data = BlockSignatureTest.class.getResourceAsStream("/ASL-2.0.txt").readAllBytes();
+        final BlockSignature signature = BlockSignature.calculate(new ByteArrayInputStream(data), 1000, HashUtils.HashAlg.MD5);
+        assertEquals("blocks", (data.length + 999) / 1000, signature.getBlocks().size());
+        assertEquals("length", data.length, signature.getLength());
+
+        final BlockSignature.Block block = signature.getBlocks().get(2);
+        assertEquals(2000, block.getOffset());
+        assertEquals(1000, block.getLength());
+        final byte[] content = new byte[1000];
+        System.arraycopy(data, 2000, content, 0, 1000);
+        assertEquals("checksum", ChecksumUtils.adler32Value(content), block.getChecksum());
+        assertEquals("hash", HashUtils.md5sum(content), block.getHash());
+    }
+
+    @Test
+    public void testUnchanged() throws IOException {
+        final byte[] data = randomBytes(1, 100_000);
+        final BlockSignature signature = BlockSignature.calculate(new ByteArrayInputStream(data), 1024, HashUtils.HashAlg.SHA1);
+        final Delta delta = signature.delta(new ByteArrayInputStream(data));
+        assertEquals("literal", 0, delta.getLiteralLength());
+        assertEquals("copy", data.length, delta.getCopyLength());
+        assertArrayEquals(data, apply(data, delta));
+    }
+
+    @Test
+    public void testModified() throws IOException {
+        final byte[] base = randomBytes(2, 200_000);
+        final ByteArrayOutputStream modified = new ByteArrayOutputStream();
+        modified.write(randomBytes(3, 17));
+        modified.write(base, 0, 50_000);
+        modified.write(randomBytes(4, 100_000));
+        modified.write(base, 120_000, 80_000);
+        final byte[] data = modified.toByteArray();
+
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, base);
+        final BlockSignature signature = BlockSignature.calculate(file, 2048, HashUtils.HashAlg.SHA256);
+        final Delta delta = signature.delta(new ByteArrayInputStream(data));
+        assertArrayEquals(data, apply(base, delta));
+        assertEquals("length", data.length, delta.getLiteralLength() + delta.getCopyLength());
+        // at most one partial block lost around each modification
+        assertTrue("copy", delta.getCopyLength() >= 130_000 - 4 * 2048);
+        for (Delta.Instruction instruction : delta.getInstructions()) {
+            if (instruction instanceof Delta.Literal) {
+                assertTrue("literal size", instruction.getLength() <= BlockSignature.MAX_LITERAL_SIZE);
+            }
+        }
+    }
+
+    @Test
+    public void testTrailingLiteral() throws IOException {
+        final int blockSize = 4096;
+        final BlockSignature signature = BlockSignature.calculate(new ByteArrayInputStream(randomBytes(6, 3 * blockSize)),
+                blockSize, HashUtils.HashAlg.MD5);
+        // no matches: the last literal also contains the final window
+        final byte[] data = randomBytes(7, 2 * BlockSignature.MAX_LITERAL_SIZE + blockSize - 1);
+        final Delta delta = signature.delta(new ByteArrayInputStream(data));
+        assertEquals("literal", data.length, delta.getLiteralLength());
+        for (Delta.Instruction instruction : delta.getInstructions()) {
+            assertTrue("literal size", instruction.getLength() <= BlockSignature.MAX_LITERAL_SIZE);
+        }
+        assertArrayEquals(data, apply(new byte[0], delta));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final BlockSignature signature = BlockSignature.calculate(new ByteArrayInputStream(new byte[0]), 512, HashUtils.HashAlg.MD5);
+        assertEquals(0, signature.getBlocks().size());
+        final byte[] data = randomBytes(5, 700);
+        final Delta delta = signature.delta(new ByteArrayInputStream(data));
+        assertEquals("literal", data.length, delta.getLiteralLength());
+        assertArrayEquals(data, apply(new byte[0], delta));
+
+        assertTrue(BlockSignature.calculate(new ByteArrayInputStream(data), 512, HashUtils.HashAlg.MD5)
+                .delta(new ByteArrayInputStream(new byte[0])).getInstructions().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> BlockSignature.calculate(new ByteArrayInputStream(data), 0, HashUtils.HashAlg.MD5));
+    }
+
+    private static byte[] apply(byte[] base, Delta delta) throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, base);
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            delta.apply(channel, out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] randomBytes(long seed, int length) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.redlink.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChecksumOutputStreamTest {
+
+    @Test
+    public void testOutputStream() throws IOException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (ChecksumOutputStream out = new ChecksumOutputStream(target, ChecksumUtils.ChecksumAlg.CRC32);
+             InputStream in = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            in.transferTo(out);
+            assertEquals("count", target.size(), out.getCount());
+            assertEquals("CRC32 mismatch", "86e2b4b4", out.getChecksum());
+            assertEquals("CRC32 mismatch", 0x86e2b4b4L, out.getValue());
+        }
+    }
+
+    @Test
+    public void testWritableByteChannel() throws IOException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (ChecksumWritableByteChannel channel = new ChecksumWritableByteChannel(Channels.newChannel(target), ChecksumUtils.ChecksumAlg.ADLER32)) {
+            final ByteBuffer buffer = ByteBuffer.wrap("Lorem Ipsum".getBytes());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            assertEquals("count", 11, channel.getCount());
+            assertEquals("ADLER32 mismatch", "1867042e", channel.getChecksum());
+            assertEquals("ADLER32 mismatch", 0x1867042eL, channel.getValue());
+        }
+        assertEquals("content", "Lorem Ipsum", target.toString());
+    }
+}
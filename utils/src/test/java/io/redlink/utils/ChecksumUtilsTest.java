@@ -25,9 +25,19 @@ import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -40,12 +50,20 @@ public class ChecksumUtilsTest {
 
     private static File file;
 
+    private static Path largeFile;
+
     @BeforeClass
     public static void setUp() throws IOException {
         file = temporaryFolder.newFile("ASL.txt");
         path = file.toPath();
 
         Files.copy(ChecksumUtilsTest.class.getResourceAsStream("/ASL-2.0.txt"), path, StandardCopyOption.REPLACE_EXISTING);
+
+        // spans several read buffers
+        final byte[] data = new byte[FileChannels.BUFFER_SIZE * 50 + 17];
+        new Random(42).nextBytes(data);
+        largeFile = temporaryFolder.newFile("large.bin").toPath();
+        Files.write(largeFile, data);
     }
 
     @Test
@@ -112,4 +130,155 @@ public class ChecksumUtilsTest {
                 ChecksumUtils.adler32(stream));
     }
 
+    @Test
+    public void testLargePath() throws IOException {
+        try (InputStream stream = Files.newInputStream(largeFile)) {
+            assertEquals("CRC32 mismatch", ChecksumUtils.crc32(stream), ChecksumUtils.crc32(largeFile));
+        }
+        try (InputStream stream = Files.newInputStream(largeFile)) {
+            assertEquals("ADLER32 mismatch", ChecksumUtils.adler32(stream), ChecksumUtils.adler32(largeFile));
+        }
+    }
+
+    @Test
+    public void testChecksumValues() throws IOException {
+        assertEquals("CRC32 mismatch", 0x358ad45dL, ChecksumUtils.crc32Value("Lorem Ipsum"));
+        assertEquals("CRC32 mismatch", 0x86e2b4b4L, ChecksumUtils.crc32Value(file));
+        assertEquals("CRC32 mismatch", 0x86e2b4b4L, ChecksumUtils.crc32Value(path));
+        assertEquals("ADLER32 mismatch", 0x1867042eL, ChecksumUtils.adler32Value("Lorem Ipsum".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("ADLER32 mismatch", 0x3a27ec70L, ChecksumUtils.adler32Value(path));
+        try (InputStream stream = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            assertEquals("ADLER32 mismatch", 0x3a27ec70L, ChecksumUtils.adler32Value(stream));
+        }
+        assertEquals("hex", "86e2b4b4", ChecksumUtils.toHex(0x86e2b4b4L));
+    }
+
+    @Test
+    public void testCrc32cString() {
+        assertEquals("CRC32C mismatch", "e3069283", ChecksumUtils.crc32c("123456789"));
+        assertEquals("CRC32C mismatch", "7f3d294c", ChecksumUtils.crc32c("Lorem Ipsum"));
+        assertEquals("CRC32C mismatch", 0x7f3d294cL, ChecksumUtils.crc32cValue("Lorem Ipsum"));
+    }
+
+    @Test
+    public void testCrc32cByteArray() {
+        assertEquals("CRC32C mismatch", "7f3d294c",
+                ChecksumUtils.crc32c("Lorem Ipsum".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testCrc32cFile() throws IOException {
+        assertEquals("CRC32C mismatch", "e16e07b9", ChecksumUtils.crc32c(file));
+        assertEquals("CRC32C mismatch", 0xe16e07b9L, ChecksumUtils.crc32cValue(file));
+    }
+
+    @Test
+    public void testCrc32cPath() throws IOException {
+        assertEquals("CRC32C mismatch", "e16e07b9", ChecksumUtils.crc32c(path));
+        try (InputStream stream = Files.newInputStream(largeFile)) {
+            assertEquals("CRC32C mismatch", ChecksumUtils.crc32c(stream), ChecksumUtils.crc32c(largeFile));
+        }
+    }
+
+    @Test
+    public void testCrc32cInputStream() throws Exception {
+        final InputStream stream = getClass().getResourceAsStream("/ASL-2.0.txt");
+
+        assertEquals("CRC32C mismatch", "e16e07b9",
+                ChecksumUtils.crc32c(stream));
+    }
+
+    @Test
+    public void testCrc32cByteBuffer() {
+        final byte[] bytes = "Lorem Ipsum".getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        assertEquals("CRC32C mismatch", "7f3d294c", ChecksumUtils.crc32c(direct));
+        assertEquals("position modified", 0, direct.position());
+        assertEquals("CRC32C mismatch", 0x7f3d294cL, ChecksumUtils.crc32cValue(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testCombine() {
+        final byte[] data = new byte[10_000];
+        new Random(42).nextBytes(data);
+        final Random rnd = new Random(4711);
+        for (int i = 0; i < 50; i++) {
+            final int split = rnd.nextInt(data.length + 1);
+            final byte[] first = Arrays.copyOfRange(data, 0, split);
+            final byte[] second = Arrays.copyOfRange(data, split, data.length);
+            assertEquals("CRC32 mismatch @" + split, ChecksumUtils.crc32Value(data),
+                    ChecksumUtils.crc32Combine(ChecksumUtils.crc32Value(first), ChecksumUtils.crc32Value(second), second.length));
+            assertEquals("CRC32C mismatch @" + split, ChecksumUtils.crc32cValue(data),
+                    ChecksumUtils.crc32cCombine(ChecksumUtils.crc32cValue(first), ChecksumUtils.crc32cValue(second), second.length));
+        }
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        assertEquals("CRC32 mismatch", "86e2b4b4", ChecksumUtils.crc32(path, ForkJoinPool.commonPool()));
+        assertEquals("CRC32C mismatch", "e16e07b9", ChecksumUtils.crc32c(path, ForkJoinPool.commonPool()));
+
+        // large enough to be split into several segments
+        final Path segmented = temporaryFolder.newFile().toPath();
+        final byte[] data = new byte[(int) ChecksumUtils.PARALLEL_SEGMENT_SIZE * 2 + 4711];
+        new Random(42).nextBytes(data);
+        Files.write(segmented, data);
+        assertEquals("CRC32 mismatch", ChecksumUtils.crc32Value(data), ChecksumUtils.crc32Value(segmented, ForkJoinPool.commonPool()));
+        assertEquals("CRC32C mismatch", ChecksumUtils.crc32cValue(data), ChecksumUtils.crc32cValue(segmented, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testCrc32Async() throws Exception {
+        assertEquals("CRC32 mismatch", "86e2b4b4", ChecksumUtils.crc32Async(path).get());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("CRC32 mismatch", ChecksumUtils.crc32(largeFile), ChecksumUtils.crc32Async(largeFile, executor).get());
+            assertEquals("CRC32 mismatch", Long.valueOf(ChecksumUtils.crc32Value(largeFile)),
+                    ChecksumUtils.crc32ValueAsync(largeFile, executor).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testByteBuffer() throws IOException {
+        final byte[] data = Files.readAllBytes(path);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        assertEquals("CRC32 mismatch", "86e2b4b4", ChecksumUtils.crc32(direct));
+        assertEquals("Adler32 mismatch", "3a27ec70", ChecksumUtils.adler32(ByteBuffer.wrap(data)));
+        assertEquals("CRC32C mismatch", 0xe16e07b9L, ChecksumUtils.checksumValue(ChecksumUtils.ChecksumAlg.CRC32C, direct));
+        assertEquals("position modified", 0, direct.position());
+
+        final ByteBuffer[] gather = {direct.duplicate().limit(100), ByteBuffer.wrap(data, 100, data.length - 100)};
+        assertEquals("CRC32 mismatch", "86e2b4b4", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32, gather));
+        assertEquals("Adler32 mismatch", 0x3a27ec70L, ChecksumUtils.checksumValue(ChecksumUtils.ChecksumAlg.ADLER32, gather));
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        try (ReadableByteChannel channel = Channels.newChannel(getClass().getResourceAsStream("/ASL-2.0.txt"))) {
+            assertEquals("CRC32C mismatch", "e16e07b9", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32C, channel));
+        }
+        try (FileChannel channel = FileChannel.open(largeFile, StandardOpenOption.READ)) {
+            assertEquals("CRC32 mismatch", ChecksumUtils.crc32Value(largeFile),
+                    ChecksumUtils.checksumValue(ChecksumUtils.ChecksumAlg.CRC32, channel));
+        }
+    }
+
+    @Test
+    public void testCharSequence() {
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() < 3 * Utf8Encoder.STREAMING_THRESHOLD) {
+            sb.append("Lorem Ipsum \u00e4\u20ac\ud83d\ude00 \ud800");
+        }
+        final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        assertEquals("CRC32 mismatch", ChecksumUtils.crc32(bytes), ChecksumUtils.crc32(sb.toString()));
+        assertEquals("CRC32C mismatch", ChecksumUtils.crc32c(bytes), ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32C, sb));
+        assertEquals("Adler32 mismatch", ChecksumUtils.adler32Value(bytes), ChecksumUtils.adler32Value(sb.toString()));
+        assertEquals("CRC32 mismatch", "358ad45d", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32, new StringBuilder("Lorem Ipsum")));
+    }
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ContentDefinedChunkerTest {
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testChunks() throws IOException {
+        final byte[] data = randomBytes(1, 3 * 1024 * 1024 + 4711);
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, data);
+
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(HashUtils.HashAlg.SHA256);
+        final List<ContentDefinedChunker.Chunk> chunks = chunker.chunk(file);
+
+        long offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            final ContentDefinedChunker.Chunk chunk = chunks.get(i);
+            assertEquals("offset", offset, chunk.getOffset());
+            assertTrue("max size", chunk.getLength() <= chunker.getMaxSize());
+            if (i < chunks.size() - 1) {
+                assertTrue("min size", chunk.getLength() >= chunker.getMinSize());
+            }
+            assertEquals("hash", HashUtils.sha256(Arrays.copyOfRange(data, (int) offset, (int) offset + chunk.getLength())), chunk.getHash());
+            offset += chunk.getLength();
+        }
+        assertEquals("length", data.length, offset);
+
+        final double avg = (double) data.length / chunks.size();
+        assertTrue("average size " + avg, avg > chunker.getAvgSize() / 2.0 && avg < chunker.getAvgSize() * 2.0);
+
+        final List<ContentDefinedChunker.Chunk> streamed = new ArrayList<>();
+        chunker.chunk(new ByteArrayInputStream(data), streamed::add);
+        assertEquals("stream", hashes(chunks), hashes(streamed));
+    }
+
+    @Test
+    public void testShiftResistance() throws IOException {
+        final byte[] data = randomBytes(2, 1024 * 1024);
+        final ByteArrayOutputStream modified = new ByteArrayOutputStream();
+        modified.write(data, 0, 100_000);
+        modified.write(randomBytes(3, 123));
+        modified.write(data, 100_000, data.length - 100_000);
+
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(HashUtils.HashAlg.MD5, 512, 4096, 16384);
+        final List<ContentDefinedChunker.Chunk> original = new ArrayList<>();
+        chunker.chunk(new ByteArrayInputStream(data), original::add);
+        final List<ContentDefinedChunker.Chunk> changed = new ArrayList<>();
+        chunker.chunk(new ByteArrayInputStream(modified.toByteArray()), changed::add);
+
+        final Set<String> known = new HashSet<>(hashes(original));
+        final long newChunks = changed.stream().filter(c -> !known.contains(c.getHash())).count();
+        assertTrue("only chunks around the insert change: " + newChunks, newChunks <= 3);
+    }
+
+    @Test
+    public void testSmallInput() throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(HashUtils.HashAlg.SHA1);
+        final List<ContentDefinedChunker.Chunk> chunks = new ArrayList<>();
+        chunker.chunk(new ByteArrayInputStream(new byte[0]), chunks::add);
+        assertTrue("empty", chunks.isEmpty());
+
+        chunker.chunk(new ByteArrayInputStream("Lorem Ipsum".getBytes()), chunks::add);
+        assertEquals(1, chunks.size());
+        assertEquals(HashUtils.sha1("Lorem Ipsum"), chunks.get(0).getHash());
+
+        assertThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(HashUtils.HashAlg.MD5, 1024, 3000, 8192));
+        assertThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(HashUtils.HashAlg.MD5, 4096, 2048, 8192));
+    }
+
+    private static List<String> hashes(List<ContentDefinedChunker.Chunk> chunks) {
+        return chunks.stream().map(ContentDefinedChunker.Chunk::getHash).collect(Collectors.toList());
+    }
+
+    private static byte[] randomBytes(long seed, int length) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class DirectoryHashTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder("tree").toPath();
+        Files.createDirectories(root.resolve("bar/x123"));
+        Files.createDirectories(root.resolve("empty"));
+        Files.write(root.resolve("File1"), "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("bar/File2"), "dolor sit amet".getBytes(StandardCharsets.UTF_8));
+        Files.copy(DirectoryHashTest.class.getResourceAsStream("/ASL-2.0.txt"), root.resolve("bar/x123/ASL.txt"));
+    }
+
+    @Test
+    public void testManifest() throws IOException {
+        final DirectoryHash hash = HashUtils.hashTree(HashUtils.HashAlg.SHA256, root);
+        assertEquals("files", 3, hash.getFiles().size());
+        assertEquals("sha256", HashUtils.sha256("Lorem Ipsum"), hash.getHash("File1"));
+        assertEquals("sha256", "cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30", hash.getHash("bar/x123/ASL.txt"));
+
+        // sorted by path, upper-case before lower-case
+        final String manifest = HashUtils.sha256("Lorem Ipsum") + "  File1\n"
+                + HashUtils.sha256("dolor sit amet") + "  bar/File2\n"
+                + "cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30  bar/x123/ASL.txt\n";
+        assertEquals("manifest", manifest, hash.getManifest());
+        assertEquals("root", HashUtils.sha256(hash.getManifest()), hash.getRoot());
+    }
+
+    @Test
+    public void testEscapedManifest() throws IOException {
+        final Path dir = temporaryFolder.newFolder("escaped").toPath();
+        Files.write(dir.resolve("new\nline"), "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("\\back"), "dolor sit amet".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("plain"), "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+
+        final DirectoryHash hash = HashUtils.hashTree(HashUtils.HashAlg.SHA256, dir);
+        assertEquals("files", 3, hash.getFiles().size());
+        final String manifest = "\\" + HashUtils.sha256("dolor sit amet") + "  \\\\back\n"
+                + "\\" + HashUtils.sha256("Lorem Ipsum") + "  new\\nline\n"
+                + HashUtils.sha256("Lorem Ipsum") + "  plain\n";
+        assertEquals("manifest", manifest, hash.getManifest());
+        assertEquals("root", HashUtils.sha256(hash.getManifest()), hash.getRoot());
+    }
+
+    @Test
+    public void testDeterministic() throws IOException {
+        final DirectoryHash parallel = HashUtils.hashTree(HashUtils.HashAlg.MD5, root);
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("single thread", parallel, HashUtils.hashTree(HashUtils.HashAlg.MD5, root, single));
+        } finally {
+            single.shutdown();
+        }
+        assertEquals("parallelism", parallel, HashUtils.hashTree(HashUtils.HashAlg.MD5, root, 2));
+
+        // empty directories do not matter, content does
+        Files.delete(root.resolve("empty"));
+        assertEquals("empty dir", parallel, HashUtils.hashTree(HashUtils.HashAlg.MD5, root));
+        Files.write(root.resolve("bar/File2"), "changed".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals("modified", parallel, HashUtils.hashTree(HashUtils.HashAlg.MD5, root));
+    }
+
+    @Test
+    public void testErrors() {
+        assertThrows(NoSuchFileException.class, () -> HashUtils.hashTree(HashUtils.HashAlg.SHA1, root.resolve("missing")));
+        assertThrows(IllegalArgumentException.class, () -> HashUtils.hashTree(HashUtils.HashAlg.SHA1, root, 0));
+    }
+}
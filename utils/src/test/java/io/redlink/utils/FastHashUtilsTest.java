@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class FastHashUtilsTest {
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Path path;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        path = temporaryFolder.newFile("ASL.txt").toPath();
+        Files.copy(FastHashUtilsTest.class.getResourceAsStream("/ASL-2.0.txt"), path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testXxHash64() throws IOException {
+        assertEquals("XXHASH64 mismatch", 0xef46db3751d8e999L, FastHashUtils.xxHash64(new byte[0]));
+        assertEquals("XXHASH64 mismatch", 0x44bc2cf5ad770999L, FastHashUtils.xxHash64("abc".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("XXHASH64 mismatch", "069e858d2cc1d8d1",
+                FastHashUtils.hash(FastHashUtils.FastHashAlg.XXHASH64, "Lorem Ipsum".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("XXHASH64 mismatch", 0xbe903366f6f1e2f7L, FastHashUtils.xxHash64("Lorem Ipsum".getBytes(StandardCharsets.UTF_8), 42));
+        assertEquals("XXHASH64 mismatch", 0x965643f9e7a4d5edL, FastHashUtils.xxHash64(path));
+        assertEquals("XXHASH64 mismatch", "965643f9e7a4d5ed", FastHashUtils.hash(FastHashUtils.FastHashAlg.XXHASH64, path));
+    }
+
+    @Test
+    public void testMurmur3() throws IOException {
+        assertEquals("MURMUR3 mismatch", "00000000000000000000000000000000",
+                FastHashUtils.hash(FastHashUtils.FastHashAlg.MURMUR3_128, new byte[0]));
+        assertEquals("MURMUR3 mismatch", "6c1b07bc7bbc4be347939ac4a93c437a",
+                FastHashUtils.hash(FastHashUtils.FastHashAlg.MURMUR3_128,
+                        "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("MURMUR3 mismatch", "476c3578e10d4b04b80670c44cb17a28",
+                HexUtils.encode(FastHashUtils.murmur3("Lorem Ipsum".getBytes(StandardCharsets.UTF_8), 42)));
+        assertEquals("MURMUR3 mismatch", "cd8915d57bba309e39210a5e617247ea",
+                FastHashUtils.hash(FastHashUtils.FastHashAlg.MURMUR3_128, path));
+    }
+
+    @Test
+    public void testCharSequence() {
+        final String string = "Lorem Ipsum äöü €";
+        assertEquals("XXHASH64 mismatch", 0x4e37012b9535f4c1L, FastHashUtils.xxHash64(string));
+        assertEquals("MURMUR3 mismatch", "cccec2facf9bc471343d47e32273dd2f",
+                FastHashUtils.hash(FastHashUtils.FastHashAlg.MURMUR3_128, new StringBuilder(string)));
+
+        final String longString = RandomUtils.nextString(new Random(42), 5000);
+        for (FastHashUtils.FastHashAlg alg : FastHashUtils.FastHashAlg.values()) {
+            assertEquals(alg + " mismatch", FastHashUtils.hash(alg, longString.getBytes(StandardCharsets.UTF_16LE)),
+                    FastHashUtils.hash(alg, longString));
+        }
+    }
+
+    @Test
+    public void testLengths() throws Exception {
+        // reference values calculated with the reference implementations for inputs (i % 251) of length 0..199
+        final StringBuilder xxHashes = new StringBuilder();
+        final StringBuilder murmurHashes = new StringBuilder();
+        for (int length = 0; length < 200; length++) {
+            final byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (i % 251);
+            }
+            xxHashes.append(FastHashUtils.hash(FastHashUtils.FastHashAlg.XXHASH64, data));
+            murmurHashes.append(FastHashUtils.hash(FastHashUtils.FastHashAlg.MURMUR3_128, data));
+        }
+        assertEquals("XXHASH64 mismatch", "a0b7f0e4eaf942c01151c797c8f60dcc", HashUtils.md5sum(xxHashes.toString()));
+        assertEquals("MURMUR3 mismatch", "51a307e5dbca7984d1d91e122fc6cbfc", HashUtils.md5sum(murmurHashes.toString()));
+    }
+
+    @Test
+    public void testByteBuffer() {
+        final Random rnd = new Random(42);
+        for (int length : new int[]{0, 1, 15, 16, 17, 31, 32, 33, 100, 1000}) {
+            final byte[] data = new byte[length];
+            rnd.nextBytes(data);
+            final ByteBuffer direct = ByteBuffer.allocateDirect(length + 3);
+            direct.put(new byte[3]).put(data).flip().position(3);
+            for (FastHashUtils.FastHashAlg alg : FastHashUtils.FastHashAlg.values()) {
+                assertEquals(alg + " mismatch (direct)", FastHashUtils.hash(alg, data), FastHashUtils.hash(alg, direct));
+                assertEquals(alg + " mismatch (heap)", FastHashUtils.hash(alg, data),
+                        FastHashUtils.hash(alg, ByteBuffer.wrap(data)));
+                assertEquals("position modified", 3, direct.position());
+            }
+            assertEquals("XXHASH64 mismatch", FastHashUtils.xxHash64(data), FastHashUtils.xxHash64(direct));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        final byte[] data = new byte[1000];
+        new Random(42).nextBytes(data);
+        final String expected = FastHashUtils.hash(FastHashUtils.FastHashAlg.XXHASH64, data);
+        for (int step : new int[]{1, 3, 7, 31, 33, 64}) {
+            final StripedHasher hasher = FastHashUtils.FastHashAlg.XXHASH64.createHasher();
+            for (int off = 0; off < data.length; off += step) {
+                final int len = Math.min(step, data.length - off);
+                if ((off / step) % 2 == 0) {
+                    hasher.update(data, off, len);
+                } else {
+                    final ByteBuffer direct = ByteBuffer.allocateDirect(len);
+                    direct.put(data, off, len).flip();
+                    hasher.update(direct);
+                }
+            }
+            assertEquals("step " + step, expected, HexUtils.encode(hasher.digest()));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class FileCopierTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReflinkWithoutReflinkSupport() throws Exception {
+        assumeTrue("reflink not available", FileCopier.reflinkAvailable);
+        final Path folder = temporaryFolder.newFolder().toPath();
+        // a cp like the one of BSD or busybox, counting its invocations
+        final Path calls = folder.resolve("calls");
+        final Path cp = folder.resolve("cp");
+        Files.writeString(cp, "#!/bin/sh\n"
+                + "echo call >> '" + calls + "'\n"
+                + "echo 'cp: illegal option -- -' >&2\n"
+                + "echo 'usage: cp [-R [-H | -L | -P]] [-fi | -n] [-aclpsvXx] source_file target_file' >&2\n"
+                + "exit 64\n");
+        Files.setPosixFilePermissions(cp, PosixFilePermissions.fromString("rwx------"));
+
+        final Path source = folder.resolve("source");
+        Files.write(source, RandomUtils.nextString((int) FileCopier.REFLINK_THRESHOLD + 17).getBytes(StandardCharsets.UTF_8));
+
+        final String cpCommand = FileCopier.cpCommand;
+        FileCopier.cpCommand = cp.toString();
+        try {
+            FileCopier.reflink(source, folder.resolve("first"), false);
+            assertFalse("reflink disabled", FileCopier.reflinkAvailable);
+            FileCopier.reflink(source, folder.resolve("second"), false);
+
+            assertEquals("cp calls", 1, Files.readAllLines(calls).size());
+            assertArrayEquals("first", Files.readAllBytes(source), Files.readAllBytes(folder.resolve("first")));
+            assertArrayEquals("second", Files.readAllBytes(source), Files.readAllBytes(folder.resolve("second")));
+        } finally {
+            FileCopier.cpCommand = cpCommand;
+            FileCopier.reflinkAvailable = true;
+        }
+    }
+}
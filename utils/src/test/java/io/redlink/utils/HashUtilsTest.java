@@ -16,15 +16,36 @@
 
 package io.redlink.utils;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -43,12 +64,20 @@ public class HashUtilsTest {
 
     private static File file;
 
+    private static Path largeFile;
+
     @BeforeClass
     public static void setUp() throws IOException {
         file = temporaryFolder.newFile("ASL.txt");
         path = file.toPath();
 
         Files.copy(HashUtilsTest.class.getResourceAsStream("/ASL-2.0.txt"), path, StandardCopyOption.REPLACE_EXISTING);
+
+        // spans several read buffers
+        final byte[] data = new byte[FileChannels.BUFFER_SIZE * 50 + 17];
+        new Random(42).nextBytes(data);
+        largeFile = temporaryFolder.newFile("large.bin").toPath();
+        Files.write(largeFile, data);
     }
 
     @Test
@@ -228,4 +257,208 @@ public class HashUtilsTest {
                 "98f6b79b778f7b0a15415bd750c3a8a097d650511cb4ec8115188e115c47053fe700f578895c097051c9bc3dfb6197c2b13a15de203273e1a3218884f86e90e8",
                 HashUtils.sha512(stream));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMultiHashString() {
+        final Map<HashUtils.HashAlg, String> hashes = HashUtils.hash(EnumSet.allOf(HashUtils.HashAlg.class), "Lorem Ipsum");
+        assertEquals("Number of hashes", HashUtils.HashAlg.values().length, hashes.size());
+        for (HashUtils.HashAlg alg : HashUtils.HashAlg.values()) {
+            assertEquals(alg + " mismatch", HashUtils.hash(alg, "Lorem Ipsum"), hashes.get(alg));
+        }
+    }
+
+    @Test
+    public void testMultiHashByteArray() {
+        final Map<HashUtils.HashAlg, String> hashes = HashUtils.hash(EnumSet.of(HashUtils.HashAlg.MD5, HashUtils.HashAlg.SHA256),
+                "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        assertEquals("Number of hashes", 2, hashes.size());
+        assertEquals("MD5 mismatch", "6dbd01b4309de2c22b027eb35a3ce18b", hashes.get(HashUtils.HashAlg.MD5));
+        assertEquals("SHA256 mismatch", "030dc1f936c3415aff3f3357163515190d347a28e758e1f717d17bae453541c9",
+                hashes.get(HashUtils.HashAlg.SHA256));
+    }
+
+    @Test
+    public void testMultiHashPath() throws IOException {
+        final Map<HashUtils.HashAlg, String> hashes = HashUtils.hash(EnumSet.allOf(HashUtils.HashAlg.class), path);
+        for (HashUtils.HashAlg alg : HashUtils.HashAlg.values()) {
+            assertEquals(alg + " mismatch", HashUtils.hash(alg, path), hashes.get(alg));
+        }
+        assertEquals("Hash mismatch", hashes, HashUtils.hash(EnumSet.allOf(HashUtils.HashAlg.class), file));
+    }
+
+    @Test
+    public void testMultiHashInputStream() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            final Map<HashUtils.HashAlg, String> hashes = HashUtils.hash(EnumSet.of(HashUtils.HashAlg.MD5, HashUtils.HashAlg.SHA1), stream);
+            assertEquals("Number of hashes", 2, hashes.size());
+            assertEquals("MD5 mismatch", "3b83ef96387f14655fc854ddc3c6bd57", hashes.get(HashUtils.HashAlg.MD5));
+            assertEquals("SHA1 mismatch", "2b8b815229aa8a61e483fb4ba0588b8b6c491890", hashes.get(HashUtils.HashAlg.SHA1));
+        }
+    }
+
+    @Test
+    public void testInputStreamIsClosed() throws IOException {
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        HashUtils.hash(HashUtils.HashAlg.MD5, new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+        assertTrue("single digest closes the stream", closed.getAndSet(false));
+
+        HashUtils.hash(EnumSet.of(HashUtils.HashAlg.MD5, HashUtils.HashAlg.SHA1), new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+        assertTrue("multi digest closes the stream", closed.get());
+    }
+
+    @Test
+    public void testHashLargePath() throws IOException {
+        for (HashUtils.HashAlg alg : HashUtils.HashAlg.values()) {
+            try (InputStream stream = Files.newInputStream(largeFile)) {
+                assertEquals(alg + " mismatch", HashUtils.hash(alg, stream), HashUtils.hash(alg, largeFile));
+            }
+        }
+        try (InputStream stream = Files.newInputStream(largeFile)) {
+            assertEquals("Hash mismatch", HashUtils.hash(EnumSet.allOf(HashUtils.HashAlg.class), stream),
+                    HashUtils.hash(EnumSet.allOf(HashUtils.HashAlg.class), largeFile));
+        }
+    }
+
+    @Test
+    public void testDigest() throws IOException {
+        assertArrayEquals("MD5 mismatch", HexUtils.decode("6dbd01b4309de2c22b027eb35a3ce18b"),
+                HashUtils.digest(HashUtils.HashAlg.MD5, "Lorem Ipsum"));
+        assertArrayEquals("SHA1 mismatch", HexUtils.decode("0646164d30b3bd0023a1e6878712eb1b9b15a1da"),
+                HashUtils.digest(HashUtils.HashAlg.SHA1, "Lorem Ipsum".getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals("SHA256 mismatch", HexUtils.decode("cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30"),
+                HashUtils.digest(HashUtils.HashAlg.SHA256, path));
+        assertArrayEquals("SHA256 mismatch", HexUtils.decode("cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30"),
+                HashUtils.digest(HashUtils.HashAlg.SHA256, file));
+        try (InputStream stream = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            assertArrayEquals("MD5 mismatch", HexUtils.decode("3b83ef96387f14655fc854ddc3c6bd57"),
+                    HashUtils.digest(HashUtils.HashAlg.MD5, stream));
+        }
+    }
+
+    @Test
+    public void testByteBuffer() throws IOException {
+        final byte[] data = Files.readAllBytes(path);
+        final ByteBuffer heap = ByteBuffer.wrap(data);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 10);
+        direct.position(5);
+        direct.put(data).flip().position(5);
+        for (ByteBuffer buffer : new ByteBuffer[]{heap, direct}) {
+            final int position = buffer.position();
+            assertEquals("SHA256 mismatch", "cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30",
+                    HashUtils.hash(HashUtils.HashAlg.SHA256, buffer));
+            assertArrayEquals("MD5 mismatch", HexUtils.decode("3b83ef96387f14655fc854ddc3c6bd57"),
+                    HashUtils.digest(HashUtils.HashAlg.MD5, buffer));
+            assertEquals("position modified", position, buffer.position());
+        }
+
+        final ByteBuffer[] gather = {
+                ByteBuffer.wrap(data, 0, 1000),
+                direct.duplicate().position(1005).limit(5000),
+                ByteBuffer.wrap(data, 4995, data.length - 4995)
+        };
+        assertEquals("SHA1 mismatch", "2b8b815229aa8a61e483fb4ba0588b8b6c491890", HashUtils.hash(HashUtils.HashAlg.SHA1, gather));
+        assertEquals("position modified", 1005, gather[1].position());
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        try (ReadableByteChannel channel = Channels.newChannel(getClass().getResourceAsStream("/ASL-2.0.txt"))) {
+            assertEquals("MD5 mismatch", "3b83ef96387f14655fc854ddc3c6bd57", HashUtils.hash(HashUtils.HashAlg.MD5, channel));
+        }
+        try (FileChannel channel = FileChannel.open(largeFile, StandardOpenOption.READ)) {
+            channel.position(17);
+            final byte[] data = Files.readAllBytes(largeFile);
+            assertArrayEquals("SHA512 mismatch", HashUtils.digest(HashUtils.HashAlg.SHA512, ByteBuffer.wrap(data, 17, data.length - 17)),
+                    HashUtils.digest(HashUtils.HashAlg.SHA512, channel));
+        }
+    }
+
+    @Test
+    public void testCharSequence() {
+        final Random rnd = new Random(42);
+        for (int length : new int[]{0, 1, 100, Utf8Encoder.STREAMING_THRESHOLD + 1, 3 * Utf8Encoder.BUFFER_SIZE + 7, 100_000}) {
+            final StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                final int type = rnd.nextInt(10);
+                if (type < 5) {
+                    sb.append((char) rnd.nextInt(0x80));
+                } else if (type < 7) {
+                    sb.append((char) (0x80 + rnd.nextInt(0x780)));
+                } else if (type < 8) {
+                    sb.append((char) (0x800 + rnd.nextInt(0xd000)));
+                } else if (type < 9) {
+                    sb.appendCodePoint(0x10000 + rnd.nextInt(0x100000));
+                } else {
+                    // unpaired surrogates
+                    sb.append((char) (Character.MIN_SURROGATE + rnd.nextInt(0x800)));
+                }
+            }
+            final String string = sb.toString();
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            assertEquals("SHA1 mismatch (" + length + ")", HashUtils.sha1(bytes), HashUtils.hash(HashUtils.HashAlg.SHA1, sb));
+            assertEquals("SHA1 mismatch (" + length + ")", HashUtils.sha1(bytes), HashUtils.sha1(string));
+            assertEquals("MD5 mismatch (" + length + ")", HashUtils.md5sum(bytes),
+                    HashUtils.hash(EnumSet.of(HashUtils.HashAlg.MD5), string).get(HashUtils.HashAlg.MD5));
+        }
+    }
+
+    @Test
+    public void testMultiDigest() throws IOException {
+        final Map<HashUtils.HashAlg, byte[]> digests = HashUtils.digest(EnumSet.allOf(HashUtils.HashAlg.class), path);
+        for (HashUtils.HashAlg alg : HashUtils.HashAlg.values()) {
+            assertEquals(alg + " mismatch", HashUtils.hash(alg, path), HexUtils.encode(digests.get(alg)));
+        }
+    }
+
+    @Test
+    public void testHashAsync() throws Exception {
+        assertEquals("SHA256 mismatch", "cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30",
+                HashUtils.hashAsync(HashUtils.HashAlg.SHA256, path).get());
+        assertEquals("MD5 mismatch", HashUtils.md5sum(largeFile),
+                HashUtils.hashAsync(HashUtils.HashAlg.MD5, largeFile).get());
+        assertEquals("SHA1 mismatch", "da39a3ee5e6b4b0d3255bfef95601890afd80709",
+                HashUtils.hashAsync(HashUtils.HashAlg.SHA1, temporaryFolder.newFile().toPath()).get());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<CompletableFuture<byte[]>> futures = IntStream.range(0, 20)
+                    .mapToObj(i -> HashUtils.digestAsync(HashUtils.HashAlg.SHA512, largeFile, executor))
+                    .collect(Collectors.toList());
+            final byte[] expected = HashUtils.digest(HashUtils.HashAlg.SHA512, largeFile);
+            for (CompletableFuture<byte[]> future : futures) {
+                assertArrayEquals("SHA512 mismatch", expected, future.get());
+            }
+
+            final CompletableFuture<String> cancelled = HashUtils.hashAsync(HashUtils.HashAlg.SHA512, largeFile, executor);
+            cancelled.cancel(true);
+            assertTrue("cancelled", cancelled.isCancelled());
+        } finally {
+            executor.shutdown();
+        }
+
+        final CompletableFuture<String> missing = HashUtils.hashAsync(HashUtils.HashAlg.MD5, path.resolveSibling("missing"));
+        final ExecutionException e = assertThrows(ExecutionException.class, missing::get);
+        assertTrue("NoSuchFileException expected", e.getCause() instanceof NoSuchFileException);
+    }
+
+    @Test
+    public void testConcurrentHashing() {
+        IntStream.range(0, 10_000).parallel()
+                .forEach(i -> {
+                    assertEquals("SHA256 mismatch", "030dc1f936c3415aff3f3357163515190d347a28e758e1f717d17bae453541c9",
+                            HashUtils.sha256("Lorem Ipsum"));
+                    assertEquals("MD5 mismatch", "6dbd01b4309de2c22b027eb35a3ce18b",
+                            HashUtils.md5sum("Lorem Ipsum".getBytes(StandardCharsets.UTF_8)));
+                });
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.redlink.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HashingOutputStreamTest {
+
+    @Test
+    public void testOutputStream() throws IOException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final HashingOutputStream out = new HashingOutputStream(target, HashUtils.HashAlg.MD5, HashUtils.HashAlg.SHA256);
+        try (InputStream in = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            in.transferTo(out);
+        }
+        out.write('\n');
+        out.close();
+
+        final byte[] data = target.toByteArray();
+        assertEquals("count", data.length, out.getCount());
+        assertEquals("MD5 mismatch", HashUtils.md5sum(data), out.getHash(HashUtils.HashAlg.MD5));
+        assertEquals("SHA256 mismatch", HashUtils.sha256(data), out.getHash(HashUtils.HashAlg.SHA256));
+        assertArrayEquals("SHA256 mismatch", HashUtils.digest(HashUtils.HashAlg.SHA256, data), out.getDigest(HashUtils.HashAlg.SHA256));
+
+        final Map<HashUtils.HashAlg, String> hashes = out.getHashes();
+        assertEquals("Hash mismatch", HashUtils.hash(EnumSet.of(HashUtils.HashAlg.MD5, HashUtils.HashAlg.SHA256), data), hashes);
+
+        assertThrows(IllegalArgumentException.class, () -> out.getHash(HashUtils.HashAlg.SHA1));
+        assertThrows(IllegalStateException.class, () -> out.write(new byte[1]));
+    }
+
+    @Test
+    public void testWritableByteChannel() throws IOException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final byte[] data = "Lorem Ipsum".repeat(100).getBytes();
+        try (HashingWritableByteChannel channel = new HashingWritableByteChannel(Channels.newChannel(target), EnumSet.of(HashUtils.HashAlg.SHA1))) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+            buffer.put(data).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            assertEquals("count", data.length, channel.getCount());
+            assertEquals("SHA1 mismatch", HashUtils.sha1(data), channel.getHash(HashUtils.HashAlg.SHA1));
+            assertArrayEquals("SHA1 mismatch", HashUtils.digest(HashUtils.HashAlg.SHA1, data), channel.getDigest(HashUtils.HashAlg.SHA1));
+        }
+        assertArrayEquals("content", data, target.toByteArray());
+    }
+
+    @Test
+    public void testPartialWrites() throws IOException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        // a channel that accepts at most 7 bytes per write
+        final WritableByteChannel delegate = Channels.newChannel(target);
+        final WritableByteChannel slow = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                final ByteBuffer part = src.duplicate();
+                part.limit(Math.min(src.limit(), src.position() + 7));
+                final int written = delegate.write(part);
+                src.position(src.position() + written);
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        final byte[] data = "Lorem Ipsum dolor sit amet".getBytes();
+        final HashingWritableByteChannel channel = new HashingWritableByteChannel(slow, HashUtils.HashAlg.MD5);
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        assertEquals("partial write", 7, channel.write(buffer));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        assertEquals("MD5 mismatch", HashUtils.md5sum(data), channel.getHash(HashUtils.HashAlg.MD5));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.redlink.utils;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HexUtilsTest {
+
+    @Test
+    public void testEncodeBytes() {
+        assertEquals("", HexUtils.encode(new byte[0]));
+        assertEquals("00017f80ff", HexUtils.encode(new byte[]{0x00, 0x01, 0x7f, (byte) 0x80, (byte) 0xff}));
+        assertEquals("7f80", HexUtils.encode(new byte[]{0x00, 0x01, 0x7f, (byte) 0x80, (byte) 0xff}, 2, 2));
+
+        final Random rnd = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            final byte[] bytes = new byte[rnd.nextInt(64) + 1];
+            rnd.nextBytes(bytes);
+            final String expected = new BigInteger(1, bytes).toString(16);
+            assertEquals("0".repeat(2 * bytes.length - expected.length()) + expected, HexUtils.encode(bytes));
+        }
+    }
+
+    @Test
+    public void testEncodeIntoBuffer() {
+        final byte[] bytes = {(byte) 0xca, (byte) 0xfe, (byte) 0xba, (byte) 0xbe};
+
+        final byte[] byteDest = "xx--------xx".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(10, HexUtils.encode(bytes, 0, bytes.length, byteDest, 2));
+        assertEquals("xxcafebabexx", new String(byteDest, StandardCharsets.US_ASCII));
+
+        final char[] charDest = "xx------xx".toCharArray();
+        assertEquals(8, HexUtils.encode(bytes, 1, 3, charDest, 2));
+        assertEquals("xxfebabexx", new String(charDest));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> HexUtils.encode(bytes, 0, bytes.length, new byte[7], 0));
+    }
+
+    @Test
+    public void testEncodeNumbers() {
+        assertEquals("00000000", HexUtils.encode(0));
+        assertEquals("358ad45d", HexUtils.encode(0x358ad45d));
+        assertEquals("ffffffff", HexUtils.encode(-1));
+        assertEquals("0000000000000000", HexUtils.encode(0L));
+        assertEquals("ef46db3751d8e999", HexUtils.encode(0xef46db3751d8e999L));
+    }
+
+    @Test
+    public void testDecode() {
+        assertArrayEquals(new byte[0], HexUtils.decode(""));
+        assertArrayEquals(new byte[]{(byte) 0xca, (byte) 0xfe, 0x00, 0x0f}, HexUtils.decode("CAfe000f"));
+        assertThrows(IllegalArgumentException.class, () -> HexUtils.decode("abc"));
+        assertThrows(IllegalArgumentException.class, () -> HexUtils.decode("zz"));
+    }
+
+}
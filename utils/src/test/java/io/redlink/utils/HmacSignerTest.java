@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.IntStream;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class HmacSignerTest {
+
+    private static final String ASL_HMAC_SHA256 = "76ad6aff66e010cc4c29f52a4cd5887f3c27d59502a32e64e9cc51679a29a24e";
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Path path;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        path = temporaryFolder.newFile("ASL.txt").toPath();
+        Files.copy(HmacSignerTest.class.getResourceAsStream("/ASL-2.0.txt"), path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testRfcVectors() {
+        // RFC 2202 / RFC 4231, test case 2
+        final String data = "what do ya want for nothing?";
+        assertEquals("HmacMD5 mismatch", "750c783e6ab0b503eaa86e310a5db738",
+                new HmacSigner(HashUtils.HashAlg.MD5, "Jefe").hash(data));
+        assertEquals("HmacSHA1 mismatch", "effcdf6ae5eb2fa2d27416d5f184df9c259a7c79",
+                new HmacSigner(HashUtils.HashAlg.SHA1, "Jefe").hash(data));
+        assertEquals("HmacSHA256 mismatch", "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843",
+                HashUtils.hmac(HashUtils.HashAlg.SHA256, "Jefe".getBytes(StandardCharsets.UTF_8)).hash(data));
+        assertEquals("HmacSHA512 mismatch", "164b7a7bfcf819e2e395fbe73b56e0a387bd64222e831fd610270cd7ea2505549758bf75c05a994a6d034f65f8f0e6fdcaeab1a34d4a6b4b636e070a38bce737",
+                new HmacSigner(HashUtils.HashAlg.SHA512, "Jefe").hash(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testInputs() throws IOException {
+        final HmacSigner signer = new HmacSigner(HashUtils.HashAlg.SHA256, "key");
+        final byte[] data = Files.readAllBytes(path);
+        assertEquals("String", ASL_HMAC_SHA256, signer.hash(new String(data, StandardCharsets.UTF_8)));
+        assertEquals("byte[]", ASL_HMAC_SHA256, signer.hash(data));
+        assertEquals("Path", ASL_HMAC_SHA256, signer.hash(path));
+        try (InputStream is = getClass().getResourceAsStream("/ASL-2.0.txt")) {
+            assertEquals("InputStream", ASL_HMAC_SHA256, signer.hash(is));
+        }
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        assertEquals("ByteBuffer", ASL_HMAC_SHA256, signer.hash(direct));
+        assertEquals("position modified", 0, direct.position());
+
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() <= Utf8Encoder.STREAMING_THRESHOLD) {
+            sb.append("Lorem Ipsum \u20ac ");
+        }
+        assertEquals("long String", signer.hash(sb.toString().getBytes(StandardCharsets.UTF_8)), signer.hash(sb.toString()));
+    }
+
+    @Test
+    public void testVerify() {
+        final HmacSigner signer = new HmacSigner(HashUtils.HashAlg.SHA1, "Jefe");
+        assertTrue(signer.verify("what do ya want for nothing?", "effcdf6ae5eb2fa2d27416d5f184df9c259a7c79"));
+        assertTrue(signer.verify("what do ya want for nothing?", "EFFCDF6AE5EB2FA2D27416D5F184DF9C259A7C79"));
+        assertFalse(signer.verify("what do ya want for nothing!", "effcdf6ae5eb2fa2d27416d5f184df9c259a7c79"));
+        assertFalse(signer.verify("what do ya want for nothing?", "not hex"));
+        assertTrue(signer.verify("Lorem Ipsum".getBytes(StandardCharsets.UTF_8), signer.digest("Lorem Ipsum")));
+
+        assertThrows(IllegalArgumentException.class, () -> new HmacSigner(HashUtils.HashAlg.MD5, new byte[0]));
+    }
+
+    @Test
+    public void testConcurrentSigning() {
+        final HmacSigner signer = new HmacSigner(HashUtils.HashAlg.SHA256, "Jefe");
+        IntStream.range(0, 10_000).parallel()
+                .forEach(i -> assertEquals("HmacSHA256 mismatch", "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843",
+                        signer.hash("what do ya want for nothing?")));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class LruDigestCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCacheHits() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.copy(LruDigestCacheTest.class.getResourceAsStream("/ASL-2.0.txt"), file, StandardCopyOption.REPLACE_EXISTING);
+
+        final LruDigestCache cache = new LruDigestCache(100);
+        assertEquals("MD5 mismatch", "3b83ef96387f14655fc854ddc3c6bd57", HashUtils.hash(HashUtils.HashAlg.MD5, file, cache));
+        assertEquals("MD5 mismatch", "3b83ef96387f14655fc854ddc3c6bd57", HashUtils.hash(HashUtils.HashAlg.MD5, file, cache));
+        assertEquals("SHA1 mismatch", "2b8b815229aa8a61e483fb4ba0588b8b6c491890", HashUtils.hash(HashUtils.HashAlg.SHA1, file, cache));
+        assertEquals("CRC32 mismatch", "86e2b4b4", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32, file, cache));
+        assertEquals("CRC32 mismatch", 0x86e2b4b4L, ChecksumUtils.checksumValue(ChecksumUtils.ChecksumAlg.CRC32, file, cache));
+        assertEquals("hits", 2, cache.getHitCount());
+        assertEquals("misses", 3, cache.getMissCount());
+        assertEquals("size", 3, cache.size());
+
+        // a cached digest must not be modifiable
+        HashUtils.digest(HashUtils.HashAlg.MD5, file, cache)[0] = 0;
+        assertEquals("MD5 mismatch", "3b83ef96387f14655fc854ddc3c6bd57", HashUtils.hash(HashUtils.HashAlg.MD5, file, cache));
+    }
+
+    @Test
+    public void testModifiedFile() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000L));
+
+        final LruDigestCache cache = new LruDigestCache(100);
+        assertEquals("358ad45d", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32, file, cache));
+
+        Files.write(file, "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_001_000L));
+        assertEquals("touched", "358ad45d", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32, file, cache));
+        assertEquals("hits", 0, cache.getHitCount());
+
+        Files.write(file, "Lorem Ipsum!".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_001_000L));
+        assertEquals("modified size", ChecksumUtils.crc32("Lorem Ipsum!"), ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32, file, cache));
+        assertEquals("hits", 0, cache.getHitCount());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        final LruDigestCache cache = new LruDigestCache(2);
+        final Path[] files = new Path[3];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = temporaryFolder.newFile().toPath();
+            Files.write(files[i], ("File " + i).getBytes(StandardCharsets.UTF_8));
+            HashUtils.digest(HashUtils.HashAlg.SHA256, files[i], cache);
+        }
+        assertEquals("size", 2, cache.size());
+        HashUtils.digest(HashUtils.HashAlg.SHA256, files[2], cache);
+        assertEquals("hits", 1, cache.getHitCount());
+        HashUtils.digest(HashUtils.HashAlg.SHA256, files[0], cache);
+        assertEquals("evicted", 1, cache.getHitCount());
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        final Path index = temporaryFolder.getRoot().toPath().resolve("cache/digests.idx");
+
+        try (LruDigestCache cache = new LruDigestCache(10, index)) {
+            assertEquals(0, cache.size());
+            HashUtils.digest(HashUtils.HashAlg.SHA512, file, cache);
+            ChecksumUtils.checksumValue(ChecksumUtils.ChecksumAlg.ADLER32, file, cache);
+        }
+        assertTrue("index written", Files.isRegularFile(index));
+
+        try (LruDigestCache cache = new LruDigestCache(10, index)) {
+            assertEquals("loaded", 2, cache.size());
+            assertEquals(HashUtils.sha512("Lorem Ipsum"), HashUtils.hash(HashUtils.HashAlg.SHA512, file, cache));
+            assertEquals("1867042e", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.ADLER32, file, cache));
+            assertEquals("hits", 2, cache.getHitCount());
+        }
+
+        Files.write(index, "garbage".getBytes(StandardCharsets.UTF_8));
+        try (LruDigestCache cache = new LruDigestCache(10, index)) {
+            assertEquals("corrupt index", 0, cache.size());
+        }
+    }
+}
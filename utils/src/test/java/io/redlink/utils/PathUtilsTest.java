@@ -25,13 +25,26 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileSystemLoopException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -174,6 +187,343 @@ public class PathUtilsTest {
                 });
     }
 
+    @Test
+    public void testCopyTreeParallel() throws Exception {
+        final Path dest = temporaryFolder.newFolder("copy-tree-parallel").toPath();
+
+        PathUtils.copyRecursive(sourceFolder, dest, CopyOptions.create().withParallelism(4));
+
+        assertTreeEquals(sourceFolder, dest, false);
+    }
+
+    @Test
+    public void testCopyTreeParallelPreservingAttrs() throws Exception {
+        final Path dest = temporaryFolder.newFolder("copy-tree-parallel-w-attrs").toPath();
+
+        PathUtils.copyRecursive(sourceFolder, dest, CopyOptions.create().withPreserve(true).withParallelism(4));
+
+        assertTreeEquals(sourceFolder, dest, true);
+    }
+
+    @Test
+    public void testCopyLargeTreeParallel() throws Exception {
+        final Path source = temporaryFolder.newFolder("large-tree").toPath();
+        final FileTime yesterday = FileTime.fromMillis(System.currentTimeMillis() - 24 * 60 * 60 * 1000);
+        for (int d = 0; d < 10; d++) {
+            final Path dir = Files.createDirectories(source.resolve("d" + d).resolve("sub" + d % 3));
+            for (int f = 0; f < 50; f++) {
+                final Path file = Files.write(dir.resolve("f" + f), RandomUtils.nextString(f * 100).getBytes());
+                Files.setLastModifiedTime(file, yesterday);
+            }
+            Files.setLastModifiedTime(dir, yesterday);
+            Files.setLastModifiedTime(dir.getParent(), yesterday);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final Path dest = temporaryFolder.newFolder("copy-large-tree").toPath();
+            PathUtils.copyRecursive(source, dest, CopyOptions.create().withPreserve(true).withExecutor(executor));
+            assertTreeEquals(source, dest, true);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> CopyOptions.create().withParallelism(0));
+    }
+
+    @Test
+    public void testCopyTreeParallelFailure() throws Exception {
+        final Path dest = temporaryFolder.newFolder("copy-tree-parallel-failure").toPath();
+        // a non-empty directory can't be replaced by a file
+        Files.createDirectories(dest.resolve("bar").resolve("File2").resolve("blocker"));
+
+        assertThrows(DirectoryNotEmptyException.class, () -> PathUtils.copyRecursive(sourceFolder, dest,
+                CopyOptions.create().withPreserve(true).withParallelism(2)));
+    }
+
+    @Test
+    public void testCopyStrategies() throws Exception {
+        final Path large = temporaryFolder.newFile().toPath();
+        Files.write(large, RandomUtils.nextString((int) FileCopier.REFLINK_THRESHOLD + 17).getBytes());
+        for (PathUtils.CopyStrategy strategy : PathUtils.CopyStrategy.values()) {
+            final Path folder = temporaryFolder.newFolder("copy-strategy-" + strategy).toPath();
+
+            final Path file = folder.resolve("file");
+            PathUtils.copy(sourceFile, file, true, strategy);
+            assertArrayEquals("content " + strategy, Files.readAllBytes(sourceFile), Files.readAllBytes(file));
+            assertEquals("lastMod " + strategy, Files.getLastModifiedTime(sourceFile), Files.getLastModifiedTime(file));
+
+            // copying a file onto itself does nothing
+            PathUtils.copy(file, file, false, strategy);
+            assertArrayEquals("self-copy " + strategy, Files.readAllBytes(sourceFile), Files.readAllBytes(file));
+
+            // an existing destination is replaced, not written through
+            final Path linkTarget = temporaryFolder.newFile().toPath();
+            final Path link = Files.createSymbolicLink(folder.resolve("link"), linkTarget);
+            PathUtils.copy(large, link, false, strategy);
+            assertFalse("symlink replaced " + strategy, Files.isSymbolicLink(link));
+            assertArrayEquals("content " + strategy, Files.readAllBytes(large), Files.readAllBytes(link));
+            assertEquals("symlink target modified " + strategy, 0, Files.size(linkTarget));
+
+            final Path tree = folder.resolve("tree");
+            PathUtils.copyRecursive(sourceFolder, tree, CopyOptions.create().withPreserve(true).withStrategy(strategy));
+            assertTreeEquals(sourceFolder, tree, true);
+
+            final Path parallelTree = folder.resolve("parallel-tree");
+            PathUtils.copyRecursive(sourceFolder, parallelTree,
+                    CopyOptions.create().withPreserve(true).withStrategy(strategy).withParallelism(2));
+            assertTreeEquals(sourceFolder, parallelTree, true);
+        }
+
+        final Path link = temporaryFolder.newFolder("copy-strategy-link").toPath().resolve("file");
+        PathUtils.copy(sourceFile, link, false, PathUtils.CopyStrategy.HARDLINK);
+        assertTrue("hard link", Files.isSameFile(sourceFile, link));
+    }
+
+    @Test
+    public void testSync() throws Exception {
+        final Path dest = temporaryFolder.newFolder("sync").toPath();
+
+        final SyncReport initial = PathUtils.sync(sourceFolder, dest);
+        assertEquals("added", Set.of(Path.of("foo"), Path.of("foo", "File1"), Path.of("bar"), Path.of("bar", "File1"),
+                Path.of("bar", "File2"), Path.of("bar", "x123"), Path.of("bar", "x123", "FileX")), initial.getAdded());
+        assertEquals("copied bytes", 4 * Files.size(sourceFile), initial.getCopiedBytes());
+        assertTreeEquals(sourceFolder, dest, true);
+
+        final SyncReport noop = PathUtils.sync(sourceFolder, dest);
+        assertFalse("changes " + noop, noop.hasChanges());
+        assertEquals("unchanged", 4, noop.getUnchanged());
+
+        Files.write(dest.resolve("bar").resolve("File2"), "modified".getBytes());
+        Files.delete(dest.resolve("bar").resolve("File1"));
+        Files.createDirectories(dest.resolve("bar").resolve("File1").resolve("sub"));
+        Files.write(dest.resolve("extra"), "extra".getBytes());
+        Files.createDirectories(dest.resolve("foo").resolve("extra-dir").resolve("sub"));
+
+        final SyncReport update = PathUtils.sync(sourceFolder, dest);
+        assertEquals("updated", Set.of(Path.of("bar", "File1"), Path.of("bar", "File2")), update.getUpdated());
+        assertTrue("added " + update.getAdded(), update.getAdded().isEmpty());
+        assertTrue("deleted " + update.getDeleted(), update.getDeleted().isEmpty());
+        assertTrue("extraneous entry removed", Files.exists(dest.resolve("extra")));
+        assertTreeEquals(sourceFolder, dest, true);
+
+        final SyncReport delete = PathUtils.sync(sourceFolder, dest, SyncOptions.create().withDelete(true));
+        assertEquals("deleted", Set.of(Path.of("extra"), Path.of("foo", "extra-dir")), delete.getDeleted());
+        assertEquals("unchanged", 4, delete.getUnchanged());
+        assertFalse("extraneous entry kept", Files.exists(dest.resolve("extra")));
+        assertFalse("extraneous entry kept", Files.exists(dest.resolve("foo").resolve("extra-dir")));
+        assertTreeEquals(sourceFolder, dest, true);
+    }
+
+    @Test
+    public void testSyncFailures() throws Exception {
+        final Path missing = temporaryFolder.getRoot().toPath().resolve(UUID.randomUUID().toString());
+        final Path dest = temporaryFolder.newFolder("sync-failures").toPath();
+        assertThrows(NoSuchFileException.class, () -> PathUtils.sync(missing, dest));
+        assertThrows(NoSuchFileException.class, () -> PathUtils.sync(missing, dest, SyncOptions.create().withParallelism(2)));
+
+        // a link to its own parent can't be walked
+        final Path source = temporaryFolder.newFolder("sync-failures-source").toPath();
+        PathUtils.copyRecursive(sourceFolder, source);
+        Files.createSymbolicLink(source.resolve("bar").resolve("loop"), source.resolve("bar"));
+        assertThrows(FileSystemLoopException.class, () -> PathUtils.sync(source, dest));
+        assertThrows(FileSystemLoopException.class, () -> PathUtils.sync(source, dest, SyncOptions.create().withParallelism(2)));
+        Files.delete(source.resolve("bar").resolve("loop"));
+
+        final Path locked = source.resolve("bar").resolve("x123");
+        Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("---------"));
+        try {
+            assumeFalse("permissions are not enforced", Files.isReadable(locked));
+            assertThrows(AccessDeniedException.class, () -> PathUtils.sync(source, dest));
+        } finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    @Test
+    public void testSyncWithChecksum() throws Exception {
+        final Path dest = temporaryFolder.newFolder("sync-checksum").toPath();
+        PathUtils.sync(sourceFolder, dest, SyncOptions.create().withParallelism(4).withStrategy(PathUtils.CopyStrategy.TRANSFER));
+        assertTreeEquals(sourceFolder, dest, true);
+
+        // same size and modification time, but different content
+        final Path file = dest.resolve("foo").resolve("File1");
+        final byte[] content = Files.readAllBytes(file);
+        content[42]++;
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, Files.getLastModifiedTime(sourceFolder.resolve("foo").resolve("File1")));
+
+        assertFalse("changes", PathUtils.sync(sourceFolder, dest).hasChanges());
+        final SyncReport report = PathUtils.sync(sourceFolder, dest,
+                SyncOptions.create().withChecksum(HashUtils.HashAlg.SHA256).withParallelism(2));
+        assertEquals("updated", Set.of(Path.of("foo", "File1")), report.getUpdated());
+        assertEquals("unchanged", 3, report.getUnchanged());
+        assertTreeEquals(sourceFolder, dest, true);
+
+        assertThrows(IllegalArgumentException.class, () -> SyncOptions.create().withParallelism(0));
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        final RecordingListener copyListener = new RecordingListener(true);
+        final Path dest = temporaryFolder.newFolder("copy-progress").toPath();
+        PathUtils.copyRecursive(sourceFolder, dest,
+                CopyOptions.create().withPreserve(true).withParallelism(2).withListener(copyListener));
+
+        final Progress progress = copyListener.finished;
+        assertNotNull("finished", progress);
+        assertSame("started", progress, copyListener.started);
+        assertEquals("total files", 4, progress.getTotalFiles());
+        assertEquals("total bytes", 4 * Files.size(sourceFile), progress.getTotalBytes());
+        assertEquals("files done", 4, progress.getFilesDone());
+        assertEquals("bytes done", progress.getTotalBytes(), progress.getBytesDone());
+        assertEquals("files remaining", 0, progress.getFilesRemaining());
+        assertEquals("bytes remaining", 0, progress.getBytesRemaining());
+        assertEquals("errors", 0, progress.getErrors());
+        assertEquals("completed", 4, copyListener.completed.size());
+        assertThat("bytes/s", progress.getBytesPerSecond(), Matchers.greaterThan(0.0));
+        assertThat("latency", progress.getMaxLatency(), Matchers.greaterThanOrEqualTo(progress.getAverageLatency()));
+
+        final RecordingListener sequentialListener = new RecordingListener(false);
+        PathUtils.copyRecursive(sourceFolder, temporaryFolder.newFolder("copy-progress-sequential").toPath(),
+                CopyOptions.create().withListener(sequentialListener));
+        assertEquals("files done", 4, sequentialListener.finished.getFilesDone());
+        assertEquals("completed", 4, sequentialListener.completed.size());
+
+        final RecordingListener deleteListener = new RecordingListener(false);
+        final DeleteReport report = PathUtils.deleteRecursive(dest, false, 2, deleteListener);
+        assertTrue("success", report.isSuccess());
+        assertEquals("total files", -1, deleteListener.finished.getTotalFiles());
+        assertEquals("files remaining", -1, deleteListener.finished.getFilesRemaining());
+        assertEquals("files done", 4, deleteListener.finished.getFilesDone());
+        assertEquals("bytes done", report.getFreedBytes(), deleteListener.finished.getBytesDone());
+
+        final RecordingListener missingListener = new RecordingListener(true);
+        assertThrows(NoSuchFileException.class, () -> PathUtils.deleteRecursive(dest, false, 2, missingListener));
+        assertNull("not started", missingListener.started);
+    }
+
+    @Test
+    public void testProgressDirectoryErrors() throws Exception {
+        final Path dest = temporaryFolder.newFolder("delete-progress").toPath();
+        PathUtils.copyRecursive(sourceFolder, dest);
+        final Path foo = dest.resolve("foo");
+        // re-populate foo while deleting, so foo can't be deleted (and the root is not attempted)
+        final RecordingListener listener = new RecordingListener(true) {
+            @Override
+            public void fileCompleted(Path file, long bytes, Duration latency, Progress progress) {
+                super.fileCompleted(file, bytes, latency, progress);
+                if (foo.equals(file.getParent())) {
+                    try {
+                        Files.createFile(foo.resolve("late"));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        };
+        final DeleteReport report = PathUtils.deleteRecursive(dest, false, 2, listener);
+        assertEquals("failures", Set.of(foo), report.getFailures().keySet());
+        assertThat("cause", report.getFailures().get(foo), Matchers.instanceOf(DirectoryNotEmptyException.class));
+
+        final Progress progress = listener.finished;
+        assertEquals("files done", 4, progress.getFilesDone());
+        assertEquals("errors", 0, progress.getErrors());
+        assertEquals("files remaining", 0, progress.getFilesRemaining());
+        assertEquals("directory errors", 1, progress.getDirectoryErrors());
+        assertEquals("failed directories", List.of(foo), listener.failedDirectories);
+        assertTrue("failed files", listener.failed.isEmpty());
+    }
+
+    @Test
+    public void testProgressListenerFailure() throws Exception {
+        final ProgressListener throwing = new ProgressListener() {
+            @Override
+            public void started(Progress progress) {
+                throw new IllegalStateException("started");
+            }
+
+            @Override
+            public void fileCompleted(Path file, long bytes, Duration latency, Progress progress) {
+                throw new IllegalStateException("completed " + file);
+            }
+
+            @Override
+            public void finished(Progress progress) {
+                throw new IllegalStateException("finished");
+            }
+        };
+        final Path dest = temporaryFolder.newFolder("copy-failing-listener").toPath();
+        PathUtils.copyRecursive(sourceFolder, dest,
+                CopyOptions.create().withPreserve(true).withParallelism(2).withListener(throwing));
+        assertTreeEquals(sourceFolder, dest, true);
+
+        final DeleteReport report = PathUtils.deleteRecursive(dest, false, 2, throwing);
+        assertTrue("success", report.isSuccess());
+        assertFalse("deleted", Files.exists(dest));
+    }
+
+    private static class RecordingListener implements ProgressListener {
+        private final boolean requiresTotals;
+        private final List<Path> completed = new CopyOnWriteArrayList<>();
+        private final List<Path> failed = new CopyOnWriteArrayList<>();
+        private final List<Path> failedDirectories = new CopyOnWriteArrayList<>();
+        private volatile Progress started, finished;
+
+        RecordingListener(boolean requiresTotals) {
+            this.requiresTotals = requiresTotals;
+        }
+
+        @Override
+        public boolean requiresTotals() {
+            return requiresTotals;
+        }
+
+        @Override
+        public void started(Progress progress) {
+            started = progress;
+        }
+
+        @Override
+        public void fileCompleted(Path file, long bytes, Duration latency, Progress progress) {
+            completed.add(file);
+        }
+
+        @Override
+        public void fileFailed(Path file, IOException error, Progress progress) {
+            failed.add(file);
+        }
+
+        @Override
+        public void directoryFailed(Path dir, IOException error, Progress progress) {
+            failedDirectories.add(dir);
+        }
+
+        @Override
+        public void finished(Progress progress) {
+            finished = progress;
+        }
+    }
+
+    private static void assertTreeEquals(Path source, Path dest, boolean preserve) throws IOException {
+        Files.walk(source)
+                .map(source::relativize)
+                .forEach(p -> {
+                    final Path s = source.resolve(p), d = dest.resolve(p);
+                    assertTrue("exists " + p, Files.exists(d));
+                    try {
+                        if (Files.isRegularFile(s)) {
+                            assertArrayEquals("content " + p, Files.readAllBytes(s), Files.readAllBytes(d));
+                        }
+                        if (preserve) {
+                            assertEquals("lastMod " + p, Files.getLastModifiedTime(s), Files.getLastModifiedTime(d));
+                        }
+                    } catch (IOException e) {
+                        fail(e.getMessage());
+                    }
+                });
+    }
+
     @Test
     public void testDeleteRecursive() throws Exception {
         final Path dest1 = temporaryFolder.newFolder().toPath();
@@ -187,4 +537,51 @@ public class PathUtilsTest {
         PathUtils.deleteRecursive(dest2);
         assertFalse("target not deleted", Files.exists(dest2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeleteRecursiveParallel() throws Exception {
+        final Path dest = temporaryFolder.newFolder().toPath();
+        PathUtils.copyRecursive(sourceFolder, dest);
+        final Path outside = temporaryFolder.newFile().toPath();
+        Files.createSymbolicLink(dest.resolve("link"), outside);
+
+        final DeleteReport report = PathUtils.deleteRecursive(dest, false, 4);
+        assertTrue("success " + report.getFailures(), report.isSuccess());
+        assertFalse("target not deleted", Files.exists(dest));
+        assertTrue("symlink target deleted", Files.exists(outside));
+        assertEquals("deleted files", 5, report.getDeletedFiles());
+        assertEquals("deleted directories", 4, report.getDeletedDirectories());
+        assertThat("freed bytes", report.getFreedBytes(), Matchers.greaterThanOrEqualTo(4 * Files.size(sourceFile)));
+
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.copy(sourceFile, file, StandardCopyOption.REPLACE_EXISTING);
+        final DeleteReport single = PathUtils.deleteRecursive(file, false, 1);
+        assertEquals("deleted files", 1, single.getDeletedFiles());
+        assertEquals("freed bytes", Files.size(sourceFile), single.getFreedBytes());
+        assertFalse("target not deleted", Files.exists(file));
+    }
+
+    @Test
+    public void testDeleteRecursiveParallelFailures() throws Exception {
+        // a missing root is an exception, like for the sequential deleteRecursive
+        final Path missing = temporaryFolder.getRoot().toPath().resolve(UUID.randomUUID().toString());
+        assertThrows(NoSuchFileException.class, () -> PathUtils.deleteRecursive(missing));
+        assertThrows(NoSuchFileException.class, () -> PathUtils.deleteRecursive(missing, false, 2));
+
+        final Path dest = temporaryFolder.newFolder().toPath();
+        PathUtils.copyRecursive(sourceFolder, dest);
+        final Path locked = dest.resolve("bar").resolve("x123");
+        Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("r-xr-xr-x"));
+        try {
+            assumeFalse("permissions are not enforced", Files.isWritable(locked));
+            final DeleteReport partial = PathUtils.deleteRecursive(dest, false, 4);
+            assertEquals("failures", Set.of(locked.resolve("FileX")), partial.getFailures().keySet());
+            assertEquals("deleted files", 3, partial.getDeletedFiles());
+            // x123, bar and the root are kept
+            assertEquals("deleted directories", 1, partial.getDeletedDirectories());
+            assertTrue("locked file deleted", Files.exists(locked.resolve("FileX")));
+        } finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RollingChecksumTest {
+
+    @Test
+    public void testRoll() {
+        final byte[] data = new byte[10000];
+        new Random(4711).nextBytes(data);
+        for (int window : new int[]{1, 16, 700, 5552, 6000}) {
+            final RollingChecksum checksum = new RollingChecksum();
+            checksum.update(data, 0, window);
+            assertEquals("window " + window, ChecksumUtils.adler32Value(Arrays.copyOf(data, window)), checksum.getValue());
+            for (int i = 1; i + window <= data.length; i++) {
+                checksum.roll(data[i - 1], data[i + window - 1]);
+                if (i % 97 == 0 || i + window == data.length) {
+                    assertEquals("window " + window + " at " + i,
+                            ChecksumUtils.adler32Value(Arrays.copyOfRange(data, i, i + window)), checksum.getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        final byte[] data = "Lorem Ipsum".getBytes();
+        final RollingChecksum checksum = new RollingChecksum();
+        checksum.update(data, 0, 3);
+        checksum.reset();
+        assertEquals(0, checksum.getLength());
+        assertEquals(1L, checksum.getValue());
+        checksum.update(data, 0, data.length);
+        assertEquals("1867042e", ChecksumUtils.toHex(checksum.getValue()));
+        assertThrows(IllegalStateException.class, () -> new RollingChecksum().roll((byte) 1, (byte) 2));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class TreeHashTest {
+
+    @ClassRule
+    public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Path path;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        path = temporaryFolder.newFile("ASL.txt").toPath();
+        Files.copy(TreeHashTest.class.getResourceAsStream("/ASL-2.0.txt"), path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        final byte[] data = Files.readAllBytes(path);
+        final int chunkSize = data.length / 2 - 1;
+        // 3 chunks: root = H(0x01 || H(0x01 || l0 || l1) || l2)
+        final TreeHash treeHash = HashUtils.treeHash(HashUtils.HashAlg.SHA256, path, chunkSize);
+        assertEquals("leaves", 3, treeHash.getLeafCount());
+        assertEquals("length", data.length, treeHash.getLength());
+
+        final byte[] l0 = leaf(Arrays.copyOfRange(data, 0, chunkSize));
+        final byte[] l1 = leaf(Arrays.copyOfRange(data, chunkSize, 2 * chunkSize));
+        final byte[] l2 = leaf(Arrays.copyOfRange(data, 2 * chunkSize, data.length));
+        assertEquals("leaf 0", HexUtils.encode(l0), treeHash.getLeaf(0));
+        assertEquals("leaf 2", HexUtils.encode(l2), treeHash.getLeaves().get(2));
+        assertEquals("root", HexUtils.encode(node(node(l0, l1), l2)), treeHash.getRoot());
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        final Path empty = temporaryFolder.newFile().toPath();
+        final TreeHash treeHash = HashUtils.treeHash(HashUtils.HashAlg.SHA256, empty);
+        assertEquals("leaves", 1, treeHash.getLeafCount());
+        // H(0x00)
+        assertEquals("root", "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d", treeHash.getRoot());
+    }
+
+    @Test
+    public void testSingleChunk() throws Exception {
+        final TreeHash treeHash = HashUtils.treeHash(HashUtils.HashAlg.SHA1, path);
+        assertEquals("leaves", 1, treeHash.getLeafCount());
+        assertEquals("root", HexUtils.encode(leaf(Files.readAllBytes(path), "SHA-1")), treeHash.getRoot());
+    }
+
+    @Test
+    public void testParallelism() throws Exception {
+        final ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int chunkSize : new int[]{1, 7, 64, 1000, 4096}) {
+                assertEquals("chunkSize " + chunkSize,
+                        HashUtils.treeHash(HashUtils.HashAlg.MD5, path, chunkSize, single),
+                        HashUtils.treeHash(HashUtils.HashAlg.MD5, path, chunkSize));
+            }
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testVerifyChunk() throws Exception {
+        final Path copy = temporaryFolder.newFile().toPath();
+        Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+
+        final TreeHash treeHash = HashUtils.treeHash(HashUtils.HashAlg.SHA512, copy, 1024);
+        assertTrue("unmodified chunk", treeHash.verifyChunk(copy, 3));
+
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'#'}), 3 * 1024 + 5);
+        }
+        assertFalse("modified chunk", treeHash.verifyChunk(copy, 3));
+        assertTrue("unmodified chunk", treeHash.verifyChunk(copy, 2));
+        assertTrue("unmodified chunk", treeHash.verifyChunk(copy, 4));
+        assertNotEquals("root", treeHash.getRoot(), HashUtils.treeHash(HashUtils.HashAlg.SHA512, copy, 1024).getRoot());
+    }
+
+    private static byte[] leaf(byte[] chunk) throws Exception {
+        return leaf(chunk, "SHA-256");
+    }
+
+    private static byte[] leaf(byte[] chunk, String alg) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance(alg);
+        digest.update((byte) 0x00);
+        return digest.digest(chunk);
+    }
+
+    private static byte[] node(byte[] left, byte[] right) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update((byte) 0x01);
+        digest.update(left);
+        return digest.digest(right);
+    }
+}
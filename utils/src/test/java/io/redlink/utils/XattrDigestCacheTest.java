@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2022 Redlink GmbH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.redlink.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class XattrDigestCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = temporaryFolder.newFile("ASL.txt").toPath();
+        Files.copy(XattrDigestCacheTest.class.getResourceAsStream("/ASL-2.0.txt"), file, StandardCopyOption.REPLACE_EXISTING);
+        assumeTrue("user-defined attributes not supported", XattrDigestCache.isSupported(file));
+        try {
+            Files.getFileAttributeView(file, UserDefinedFileAttributeView.class).list();
+        } catch (IOException e) {
+            assumeTrue("user-defined attributes not supported: " + e.getMessage(), false);
+        }
+    }
+
+    @Test
+    public void testStoreDigest() throws IOException {
+        final XattrDigestCache cache = new XattrDigestCache();
+        assertEquals("SHA256 mismatch", "cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30",
+                HashUtils.hash(HashUtils.HashAlg.SHA256, file, cache));
+        assertEquals("CRC32C mismatch", "e16e07b9", ChecksumUtils.checksum(ChecksumUtils.ChecksumAlg.CRC32C, file, cache));
+
+        final UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+        assertTrue("attribute written", view.list().contains(XattrDigestCache.DEFAULT_PREFIX + "SHA256"));
+        assertTrue("attribute written", view.list().contains(XattrDigestCache.DEFAULT_PREFIX + "CRC32C"));
+
+        // survives a move
+        final Path moved = file.resolveSibling("moved.txt");
+        Files.move(file, moved);
+        final BasicFileAttributes attributes = Files.readAttributes(moved, BasicFileAttributes.class);
+        assertEquals("cfc7749b96f63bd31c3c42b5c471bf756814053e847c10f3eb003417bc523d30",
+                HexUtils.encode(cache.get(moved, attributes, "SHA256")));
+
+        cache.clear(moved);
+        assertNull("cleared", cache.get(moved, attributes, "SHA256"));
+    }
+
+    @Test
+    public void testStaleStamp() throws IOException {
+        final XattrDigestCache cache = new XattrDigestCache();
+        HashUtils.digest(HashUtils.HashAlg.MD5, file, cache);
+
+        Files.write(file, "Lorem Ipsum".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000L));
+        assertNull("stale", cache.get(file, Files.readAttributes(file, BasicFileAttributes.class), "MD5"));
+        assertEquals("MD5 mismatch", HashUtils.md5sum("Lorem Ipsum"), HashUtils.hash(HashUtils.HashAlg.MD5, file, cache));
+
+        // a stored digest is returned without reading the (unchanged) file
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        cache.put(file, attributes, "MD5", new byte[]{1, 2, 3});
+        assertEquals("cached", "010203", HashUtils.hash(HashUtils.HashAlg.MD5, file, cache));
+    }
+}